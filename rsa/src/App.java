@@ -1,5 +1,261 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import utils.PrimeChecker;
+import utils.PrimeCheckers;
+import utils.PrimeMetricsRecorder;
+import utils.RSAKeyPair;
+
+/**
+ * Load driver for prime and key-pair generation. Worker threads generate back to back for a fixed
+ * time, and the run ends with throughput, latency percentiles, candidates tested per accepted prime
+ * and GC and allocation figures. Unlike bench.PrimeCheckerBenchmark, which times one call at a time,
+ * this shows how a checker behaves with every core busy.
+ *
+ * Usage: java -cp bin App [--mode prime|keypair] [--checker MillerRabin] [--bits 2048] [--certainty 40]
+ *        [--threads 8] [--duration-s 30] [--warmup-s 5]
+ */
 public class App {
+
     public static void main(String[] args) throws Exception {
-        
+        String mode = "prime";
+        String checkerName = "MillerRabin";
+        int bitLength = 2048;
+        int certainty = 40;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long durationSeconds = 30;
+        long warmupSeconds = 5;
+
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--mode": mode = value; break;
+                case "--checker": checkerName = value; break;
+                case "--bits": bitLength = Integer.parseInt(value); break;
+                case "--certainty": certainty = Integer.parseInt(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--duration-s": durationSeconds = Long.parseLong(value); break;
+                case "--warmup-s": warmupSeconds = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (!mode.equals("prime") && !mode.equals("keypair")) {
+            throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+
+        PrimeMetricsRecorder metrics = new PrimeMetricsRecorder();
+        PrimeChecker checker = PrimeCheckers.byName(checkerName, metrics);
+        Operation operation = mode.equals("prime")
+                ? primes(checker, bitLength, certainty)
+                : keyPairs(checker, bitLength, certainty);
+
+        System.out.printf(Locale.ROOT, "%s %s, %d bits, certainty %d, %d threads, %ds warm-up, %ds measured%n",
+                mode, checkerName, bitLength, certainty, threads, warmupSeconds, durationSeconds);
+        if (warmupSeconds > 0) {
+            run(operation, threads, warmupSeconds * 1_000_000_000L);
+            metrics.reset();
+        }
+
+        long gcCount = gcCount();
+        long gcMillis = gcTimeMillis();
+        long start = System.nanoTime();
+        Run measured = run(operation, threads, durationSeconds * 1_000_000_000L);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        report(measured, metrics, elapsedSeconds, gcCount() - gcCount, gcTimeMillis() - gcMillis);
+    }
+
+    /**
+     * One unit of load: a prime or a key pair.
+     */
+    private interface Operation {
+        Object run();
+    }
+
+    private static Operation primes(PrimeChecker checker, int bitLength, int certainty) {
+        return () -> checker.generatePrime(bitLength, certainty);
+    }
+
+    /**
+     * Builds key pairs the way a key service would, through the same pairing loop as
+     * utils.KeyPairPipeline: primes with p - 1 coprime to e, redrawn as a pair until the modulus has
+     * exactly the requested length.
+     */
+    private static Operation keyPairs(PrimeChecker checker, int modulusBits, int certainty) {
+        BigInteger e = RSAKeyPair.DEFAULT_PUBLIC_EXPONENT;
+        RSAKeyPair.PrimeSource primes = bitLength -> usablePrime(checker, bitLength, certainty, e);
+        return () -> {
+            try {
+                return RSAKeyPair.fromPrimeSource(modulusBits, e, primes);
+            } catch (InterruptedException ex) {
+                // Unreachable: generating from a checker never waits
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+        };
+    }
+
+    private static BigInteger usablePrime(PrimeChecker checker, int bitLength, int certainty, BigInteger e) {
+        while (true) {
+            BigInteger prime = checker.generatePrime(bitLength, certainty);
+            if (prime.subtract(BigInteger.ONE).gcd(e).equals(BigInteger.ONE)) {
+                return prime;
+            }
+        }
+    }
+
+    /**
+     * Runs the operation on every thread until the time is up. An operation already in flight at the
+     * deadline is allowed to finish and is counted. Allocation is summed over every live thread, so
+     * checkers that hand work to a pool such as ParallelMillerRabin are charged for it too.
+     */
+    private static Run run(Operation operation, int threads, long nanos) throws Exception {
+        Map<Long, Long> allocatedBefore = allocatedBytes();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "load-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long deadline = System.nanoTime() + nanos;
+        List<Future<Worker>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> new Worker().runUntil(operation, deadline)));
+        }
+        List<Worker> workers = new ArrayList<>();
+        for (Future<Worker> future : futures) {
+            workers.add(future.get());
+        }
+        // Read the counters before shutdown, while the load threads are still alive
+        long allocated = allocatedSince(allocatedBefore);
+        executor.shutdown();
+        return new Run(workers, allocated);
+    }
+
+    /**
+     * The per-thread results of one timed run and the bytes allocated by all threads during it.
+     */
+    private record Run(List<Worker> workers, long allocatedBytes) {
+    }
+
+    private static void report(Run run, PrimeMetricsRecorder metrics, double elapsedSeconds,
+            long gcCount, long gcMillis) {
+        List<Worker> workers = run.workers();
+        long allocated = run.allocatedBytes();
+        int operations = workers.stream().mapToInt(w -> w.count).sum();
+        long[] latencies = new long[operations];
+        int at = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, at, worker.count);
+            at += worker.count;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf(Locale.ROOT, "operations        %d in %.1f s%n", operations, elapsedSeconds);
+        System.out.printf(Locale.ROOT, "throughput        %.2f ops/s%n", operations / elapsedSeconds);
+        if (operations > 0) {
+            System.out.printf(Locale.ROOT, "latency ms        p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                    millis(latencies, 0.50), millis(latencies, 0.90), millis(latencies, 0.99),
+                    millis(latencies, 0.999), latencies[operations - 1] / 1e6);
+        }
+        long primes = metrics.getGeneratePrimeCalls();
+        if (primes > 0) {
+            System.out.printf(Locale.ROOT, "candidates/prime  %.1f tested, %.1f sieved out%n",
+                    (double) metrics.getCandidatesDrawn() / primes,
+                    (double) metrics.getRejectedByStage().getOrDefault("sieve", 0L) / primes);
+            System.out.printf(Locale.ROOT, "witness rounds    %d, %.0f%% of their time in modPow%n",
+                    metrics.getWitnessRounds(),
+                    100.0 * metrics.getModPowNanos() / Math.max(1, metrics.getModPowNanos() + metrics.getRandomNanos()));
+        } else {
+            System.out.println("candidates/prime  not reported by this checker");
+        }
+        System.out.printf(Locale.ROOT, "allocation        %.1f MB/s, %.1f KB/op%n",
+                allocated / elapsedSeconds / 1e6, operations > 0 ? allocated / 1e3 / operations : 0.0);
+        System.out.printf(Locale.ROOT, "gc                %d collections, %d ms (%.2f%% of wall time)%n",
+                gcCount, gcMillis, 100.0 * gcMillis / (elapsedSeconds * 1000));
+    }
+
+    private static double millis(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * Bytes allocated so far by each live thread, empty where the JVM does not expose the counter.
+     */
+    private static Map<Long, Long> allocatedBytes() {
+        Map<Long, Long> allocated = new HashMap<>();
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            long[] ids = threads.getAllThreadIds();
+            long[] bytes = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (bytes[i] >= 0) {
+                    allocated.put(ids[i], bytes[i]);
+                }
+            }
+        }
+        return allocated;
+    }
+
+    /**
+     * Bytes allocated by all threads since the snapshot. Threads started in between count from zero.
+     */
+    private static long allocatedSince(Map<Long, Long> before) {
+        long total = 0;
+        for (Map.Entry<Long, Long> thread : allocatedBytes().entrySet()) {
+            total += thread.getValue() - before.getOrDefault(thread.getKey(), 0L);
+        }
+        return total;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTimeMillis() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+
+    /**
+     * Per-thread results, kept separate so the load threads never contend on shared counters.
+     */
+    private static final class Worker {
+        long[] latencies = new long[64];
+        int count;
+
+        Worker runUntil(Operation operation, long deadline) {
+            while (System.nanoTime() < deadline) {
+                long start = System.nanoTime();
+                operation.run();
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = System.nanoTime() - start;
+            }
+            return this;
+        }
     }
 }
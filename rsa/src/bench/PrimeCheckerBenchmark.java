@@ -0,0 +1,288 @@
+package bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import utils.PrimeChecker;
+import utils.PrimeCheckers;
+import utils.PrimeMetrics;
+import utils.TrialDivision;
+
+/**
+ * Benchmark harness for every PrimeChecker. For each checker, bit length and certainty it measures
+ * isPrime on a known prime, isPrime on a hard composite (a product of two primes of half the size)
+ * and generatePrime; PrimeChecker.getRandomBigIntegerInRange is measured once per bit length. At 64
+ * bits TrialDivision is reported as TrialDivision/LongPrimality, since that is what answers there.
+ * Each measurement reports throughput, bytes allocated per operation across all threads and GC
+ * activity, and all results are written as JSON.
+ *
+ * Usage: java -cp bin bench.PrimeCheckerBenchmark [--checkers MillerRabin,Fermats] [--bits 64,512]
+ *        [--certainty 20,40] [--warmup 2] [--iterations 5] [--time-ms 1000] [--out results.json]
+ */
+public class PrimeCheckerBenchmark {
+
+    /** Benchmarks that depend on the checker and certainty. */
+    private static final String[] BENCHMARKS = {"isPrimeOnPrime", "isPrimeOnComposite", "generatePrime"};
+
+    /** Results are folded in here so the JIT cannot drop the measured calls. */
+    private static volatile int sink;
+
+    public static void main(String[] args) throws IOException {
+        List<String> checkers = Arrays.asList("MillerRabin", "ParallelMillerRabin", "Fermats", "BailliePSW", "TrialDivision");
+        int[] bitLengths = {64, 512, 1024, 2048, 4096};
+        int[] certainties = {20, 40};
+        int warmup = 2;
+        int iterations = 5;
+        long timeMillis = 1000;
+        Path out = Paths.get("bench-results.json");
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--checkers": checkers = Arrays.asList(value.split(",")); break;
+                case "--bits": bitLengths = parseInts(value); break;
+                case "--certainty": certainties = parseInts(value); break;
+                case "--warmup": warmup = Integer.parseInt(value); break;
+                case "--iterations": iterations = Integer.parseInt(value); break;
+                case "--time-ms": timeMillis = Long.parseLong(value); break;
+                case "--out": out = Paths.get(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        List<Result> results = new ArrayList<>();
+        Random random = new Random(42);
+        for (int bitLength : bitLengths) {
+            BigInteger prime = BigInteger.probablePrime(bitLength, random);
+            BigInteger composite = BigInteger.probablePrime(bitLength / 2, random)
+                    .multiply(BigInteger.probablePrime(bitLength - bitLength / 2, random));
+
+            // The static range helper uses neither the checker nor the certainty, so it is measured once
+            BigInteger max = prime.subtract(BigInteger.TWO);
+            Result range = measure("getRandomBigIntegerInRange", "PrimeChecker", bitLength, 0,
+                    () -> PrimeChecker.getRandomBigIntegerInRange(BigInteger.TWO, max), warmup, iterations, timeMillis);
+            System.out.println(range.summary());
+            results.add(range);
+
+            for (String name : checkers) {
+                PrimeChecker checker = checker(name);
+                String label = name;
+                if (checker instanceof TrialDivision) {
+                    if (bitLength > 64) {
+                        continue; // Dividing up to sqrt(n) does not finish above 64 bits
+                    }
+                    // At 64 bits and below TrialDivision hands every input to LongPrimality
+                    label = name + "/LongPrimality";
+                }
+                for (int certainty : certainties) {
+                    for (String benchmark : BENCHMARKS) {
+                        Supplier<Object> operation = operation(benchmark, checker, prime, composite, bitLength, certainty);
+                        Result result = measure(benchmark, label, bitLength, certainty, operation, warmup, iterations, timeMillis);
+                        System.out.println(result.summary());
+                        results.add(result);
+                    }
+                }
+            }
+        }
+
+        writeJson(out, results);
+        System.out.println("Wrote " + results.size() + " results to " + out.toAbsolutePath());
+    }
+
+    /**
+     * @param name - The simple class name of a checker in the utils package.
+     * @return A new instance of that checker.
+     */
+    static PrimeChecker checker(String name) {
+        return PrimeCheckers.byName(name, PrimeMetrics.NONE);
+    }
+
+    private static Supplier<Object> operation(String benchmark, PrimeChecker checker, BigInteger prime,
+            BigInteger composite, int bitLength, int certainty) {
+        switch (benchmark) {
+            case "isPrimeOnPrime": return () -> checker.isPrime(prime, certainty);
+            case "isPrimeOnComposite": return () -> checker.isPrime(composite, certainty);
+            case "generatePrime": return () -> checker.generatePrime(bitLength, certainty);
+            default: throw new IllegalArgumentException(benchmark);
+        }
+    }
+
+    private static Result measure(String benchmark, String checker, int bitLength, int certainty,
+            Supplier<Object> operation, int warmup, int iterations, long timeMillis) {
+        for (int i = 0; i < warmup; i++) {
+            runFor(operation, timeMillis);
+        }
+
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTimeMillis();
+        Map<Long, Long> allocatedBefore = allocatedBytes();
+        long ops = 0;
+        long nanos = 0;
+        double[] scores = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            long iterationOps = runFor(operation, timeMillis);
+            long elapsed = System.nanoTime() - start;
+            scores[i] = iterationOps / (elapsed / 1e9);
+            ops += iterationOps;
+            nanos += elapsed;
+        }
+        long allocated = allocatedSince(allocatedBefore);
+
+        return new Result(benchmark, checker, bitLength, certainty, scores, ops / (nanos / 1e9),
+                (double) allocated / ops, allocated / (nanos / 1e9) / (1024 * 1024),
+                gcCount() - gcCountBefore, gcTimeMillis() - gcTimeBefore);
+    }
+
+    /**
+     * Runs the operation until the time is up, always at least once.
+     */
+    private static long runFor(Supplier<Object> operation, long timeMillis) {
+        long deadline = System.nanoTime() + timeMillis * 1_000_000;
+        long ops = 0;
+        int hash = 0;
+        do {
+            hash += operation.get().hashCode();
+            ops++;
+        } while (System.nanoTime() < deadline);
+        sink += hash;
+        return ops;
+    }
+
+    /**
+     * Bytes allocated so far by each live thread, empty where the JVM does not expose the counter.
+     * Every thread is counted, not just the caller, so checkers that hand work to a pool such as
+     * ParallelMillerRabin are charged for what their pool threads allocate.
+     */
+    private static Map<Long, Long> allocatedBytes() {
+        Map<Long, Long> allocated = new HashMap<>();
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            long[] ids = threads.getAllThreadIds();
+            long[] bytes = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (bytes[i] >= 0) {
+                    allocated.put(ids[i], bytes[i]);
+                }
+            }
+        }
+        return allocated;
+    }
+
+    /**
+     * Bytes allocated by all threads since the snapshot. Threads started in between count from zero;
+     * threads that ended in between are missed, which pool threads kept busy by the run do not do.
+     */
+    private static long allocatedSince(Map<Long, Long> before) {
+        long total = 0;
+        for (Map.Entry<Long, Long> thread : allocatedBytes().entrySet()) {
+            total += thread.getValue() - before.getOrDefault(thread.getKey(), 0L);
+        }
+        return total;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTimeMillis() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+
+    private static int[] parseInts(String csv) {
+        return Arrays.stream(csv.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static void writeJson(Path out, List<Result> results) throws IOException {
+        try (PrintStream json = new PrintStream(Files.newOutputStream(out), false, StandardCharsets.UTF_8)) {
+            json.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                json.print(results.get(i).toJson());
+                json.println(i + 1 < results.size() ? "," : "");
+            }
+            json.println("]");
+        }
+    }
+
+    /**
+     * One benchmark measurement. The JSON layout follows JMH's so existing tooling can read it.
+     */
+    private static final class Result {
+        final String benchmark;
+        final String checker;
+        final int bitLength;
+        final int certainty;
+        final double[] scores;
+        final double score;
+        final double allocatedBytesPerOp;
+        final double allocationRateMbPerSec;
+        final long gcCount;
+        final long gcTimeMillis;
+
+        Result(String benchmark, String checker, int bitLength, int certainty, double[] scores, double score,
+                double allocatedBytesPerOp, double allocationRateMbPerSec, long gcCount, long gcTimeMillis) {
+            this.benchmark = benchmark;
+            this.checker = checker;
+            this.bitLength = bitLength;
+            this.certainty = certainty;
+            this.scores = scores;
+            this.score = score;
+            this.allocatedBytesPerOp = allocatedBytesPerOp;
+            this.allocationRateMbPerSec = allocationRateMbPerSec;
+            this.gcCount = gcCount;
+            this.gcTimeMillis = gcTimeMillis;
+        }
+
+        String summary() {
+            return String.format(Locale.ROOT, "%-28s %-27s %5d bits  certainty %3d  %14.3f ops/s  %12.0f B/op  %4d GCs",
+                    benchmark, checker, bitLength, certainty, score, allocatedBytesPerOp, gcCount);
+        }
+
+        String toJson() {
+            StringBuilder raw = new StringBuilder();
+            for (int i = 0; i < scores.length; i++) {
+                raw.append(i == 0 ? "" : ", ").append(format(scores[i]));
+            }
+            return "  {\n"
+                    + "    \"benchmark\": \"bench.PrimeCheckerBenchmark." + benchmark + "\",\n"
+                    + "    \"mode\": \"thrpt\",\n"
+                    + "    \"params\": {\"checker\": \"" + checker + "\", \"bitLength\": \"" + bitLength
+                    + "\", \"certainty\": \"" + certainty + "\"},\n"
+                    + "    \"primaryMetric\": {\"score\": " + format(score) + ", \"scoreUnit\": \"ops/s\", \"rawData\": [[" + raw + "]]},\n"
+                    + "    \"secondaryMetrics\": {\n"
+                    + "      \"gc.alloc.rate\": {\"score\": " + format(allocationRateMbPerSec) + ", \"scoreUnit\": \"MB/sec\"},\n"
+                    + "      \"gc.alloc.rate.norm\": {\"score\": " + format(allocatedBytesPerOp) + ", \"scoreUnit\": \"B/op\"},\n"
+                    + "      \"gc.count\": {\"score\": " + gcCount + ", \"scoreUnit\": \"counts\"},\n"
+                    + "      \"gc.time\": {\"score\": " + gcTimeMillis + ", \"scoreUnit\": \"ms\"}\n"
+                    + "    }\n"
+                    + "  }";
+        }
+
+        private static String format(double value) {
+            return String.format(Locale.ROOT, "%.6f", value);
+        }
+    }
+}
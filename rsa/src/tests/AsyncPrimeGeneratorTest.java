@@ -0,0 +1,101 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+import utils.AsyncPrimeGenerator;
+import utils.BailliePSW;
+import utils.PrimeChecker;
+import utils.RandomSource;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Test suite for {@link AsyncPrimeGenerator} checking that searches complete, time out and can be cancelled.
+ */
+public class AsyncPrimeGeneratorTest {
+
+    @Test
+    public void testGeneratePrime() throws Exception {
+        try (AsyncPrimeGenerator generator = new AsyncPrimeGenerator(2)) {
+            BigInteger prime = generator.generatePrime(512, 20).get(60, TimeUnit.SECONDS);
+            assertEquals("Generated prime should have 512 bits", 512, prime.bitLength());
+            assertTrue("Generated number should be prime", prime.isProbablePrime(50));
+
+            BigInteger small = generator.generatePrime(32, 20).get(60, TimeUnit.SECONDS);
+            assertEquals("Generated prime should have 32 bits", 32, small.bitLength());
+            assertTrue("Small generated number should be prime", small.isProbablePrime(50));
+        }
+    }
+
+    @Test
+    public void testDeadlineReleasesThread() throws Exception {
+        try (AsyncPrimeGenerator generator = new AsyncPrimeGenerator(1)) {
+            CompletableFuture<BigInteger> slow = generator.generatePrime(8192, 40, Duration.ofMillis(50));
+            try {
+                slow.get(60, TimeUnit.SECONDS);
+                fail("An 8192-bit prime should not be found within 50 ms");
+            } catch (ExecutionException e) {
+                assertTrue("The deadline should fail the future with a TimeoutException", e.getCause() instanceof TimeoutException);
+            }
+
+            // The single thread is only free for this request if the timed-out search stopped
+            BigInteger prime = generator.generatePrime(256, 20).get(60, TimeUnit.SECONDS);
+            assertEquals("The freed thread should serve the next request", 256, prime.bitLength());
+        }
+    }
+
+    @Test
+    public void testCancelReleasesThread() throws Exception {
+        try (AsyncPrimeGenerator generator = new AsyncPrimeGenerator(1)) {
+            CompletableFuture<BigInteger> slow = generator.generatePrime(8192, 40);
+            Thread.sleep(20);
+            assertTrue("A running search should be cancellable", slow.cancel(true));
+            assertTrue("The future should report cancellation", slow.isCancelled());
+
+            BigInteger prime = generator.generatePrime(256, 20).get(60, TimeUnit.SECONDS);
+            assertEquals("The freed thread should serve the next request", 256, prime.bitLength());
+        }
+    }
+
+    @Test
+    public void testRunsAnyChecker() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try (AsyncPrimeGenerator generator = new AsyncPrimeGenerator(new BailliePSW(), pool, RandomSource.shared())) {
+            BigInteger prime = generator.generatePrime(256, 1).get(60, TimeUnit.SECONDS);
+            assertEquals("Generated prime should have 256 bits", 256, prime.bitLength());
+            assertTrue("Generated number should be prime", prime.isProbablePrime(50));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testErrorCompletesFuture() throws Exception {
+        PrimeChecker failing = new PrimeChecker() {
+            @Override
+            public boolean isPrime(BigInteger n, int iterations) {
+                throw new StackOverflowError();
+            }
+
+            @Override
+            public BigInteger generatePrime(int bitLength, int certainty) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        try (AsyncPrimeGenerator generator = new AsyncPrimeGenerator(failing, 1)) {
+            generator.generatePrime(256, 20).get(60, TimeUnit.SECONDS);
+            fail("A checker that throws should fail the future");
+        } catch (ExecutionException e) {
+            assertTrue("The error should be passed to the caller", e.getCause() instanceof StackOverflowError);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import utils.BailliePSW;
+import utils.CandidateSieve;
+import utils.Fermats;
+import utils.PrimeChecker;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Test suite for {@link BailliePSW} covering both the 64-bit fast path and the
+ * Miller-Rabin plus strong Lucas path used for larger inputs.
+ */
+public class BailliePSWTest {
+    private final PrimeChecker bailliePSW = new BailliePSW();
+
+    @Test
+    public void testSmallNumbers() {
+        assertTrue("2 should be prime", bailliePSW.isPrime(BigInteger.TWO, 0));
+        assertTrue("104729 should be prime", bailliePSW.isPrime(new BigInteger("104729"), 0));
+        assertFalse("1 should not be prime", bailliePSW.isPrime(BigInteger.ONE, 0));
+        assertFalse("561 should not be prime", bailliePSW.isPrime(new BigInteger("561"), 0));
+    }
+
+    @Test
+    public void testMersenneNumbers() {
+        int[] primeExponents = {89, 107, 127, 521, 607, 1279};
+        for (int p : primeExponents) {
+            BigInteger mersenne = BigInteger.ONE.shiftLeft(p).subtract(BigInteger.ONE);
+            assertTrue("2^" + p + " - 1 should be prime", bailliePSW.isPrime(mersenne, 0));
+        }
+        // 2^67 - 1 = 193707721 * 761838257287 passes no strong test to base 2
+        assertFalse("2^67 - 1 should not be prime", bailliePSW.isPrime(BigInteger.ONE.shiftLeft(67).subtract(BigInteger.ONE), 0));
+    }
+
+    @Test
+    public void testRejectsSquaresOfPrimes() {
+        BigInteger p = new BigInteger("68078235559159578833");
+        assertFalse("p^2 should not be prime", bailliePSW.isPrime(p.multiply(p), 0));
+    }
+
+    @Test
+    public void testRejectsLargeCarmichaelNumbers() {
+        // (6k + 1)(12k + 1)(18k + 1) is a Carmichael number whenever all three factors are prime
+        int found = 0;
+        for (long k = 1L << 24; found < 3; k++) {
+            BigInteger a = BigInteger.valueOf(6 * k + 1);
+            BigInteger b = BigInteger.valueOf(12 * k + 1);
+            BigInteger c = BigInteger.valueOf(18 * k + 1);
+            if (!a.isProbablePrime(50) || !b.isProbablePrime(50) || !c.isProbablePrime(50)) continue;
+
+            BigInteger carmichael = a.multiply(b).multiply(c);
+            BigInteger base = BigInteger.valueOf(3);
+            assertTrue("Carmichael number should fool a coprime Fermat base",
+                    base.modPow(carmichael.subtract(BigInteger.ONE), carmichael).equals(BigInteger.ONE));
+            assertFalse(carmichael + " should not be prime", bailliePSW.isPrime(carmichael, 0));
+            found++;
+        }
+    }
+
+    @Test
+    public void testAgreesWithBigIntegerOnSievedCandidates() {
+        Random random = new Random(7);
+        int[] bitLengths = {65, 100, 256};
+        for (int bitLength : bitLengths) {
+            CandidateSieve candidates = new CandidateSieve(bitLength, random);
+            for (int i = 0; i < 300; i++) {
+                BigInteger n = candidates.next();
+                assertEquals("Mismatch at " + n, n.isProbablePrime(60), bailliePSW.isPrime(n, 0));
+            }
+        }
+    }
+
+    @Test
+    public void testGeneratePrime() {
+        BigInteger prime = bailliePSW.generatePrime(512, 0);
+        assertEquals("Generated prime should have 512 bits", 512, prime.bitLength());
+        assertTrue("Generated prime should pass BigInteger's own check", prime.isProbablePrime(50));
+        assertTrue("Generated prime should pass Fermat's test", new Fermats().isPrime(prime, 10));
+    }
+}
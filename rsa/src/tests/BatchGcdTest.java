@@ -0,0 +1,126 @@
+package tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import utils.BatchGcd;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Test suite for {@link BatchGcd} checking that moduli sharing a prime are found, that
+ * independent moduli are left alone, and that spilling levels to disk gives the same answer.
+ */
+public class BatchGcdTest {
+    private final Random random = new Random(17);
+
+    private BigInteger prime() {
+        return BigInteger.probablePrime(128, random);
+    }
+
+    private List<BigInteger> corpusWithSharedPrimes(BigInteger shared, BigInteger p, BigInteger q) {
+        List<BigInteger> moduli = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            moduli.add(prime().multiply(prime()));
+        }
+        moduli.set(10, shared.multiply(prime()));
+        moduli.set(200, shared.multiply(prime()));
+        // Both primes of index 50 are shared: p with index 60, q with index 70
+        moduli.set(50, p.multiply(q));
+        moduli.set(60, p.multiply(prime()));
+        moduli.set(70, q.multiply(prime()));
+        return moduli;
+    }
+
+    @Test
+    public void testFindsSharedPrimes() throws IOException {
+        BigInteger shared = prime();
+        BigInteger p = prime();
+        BigInteger q = prime();
+        List<BigInteger> moduli = corpusWithSharedPrimes(shared, p, q);
+
+        BatchGcd batchGcd = new BatchGcd();
+        BigInteger[] factors = batchGcd.sharedFactors(moduli);
+        assertEquals("Index 10 shares the common prime", shared, factors[10]);
+        assertEquals("Index 200 shares the common prime", shared, factors[200]);
+        assertEquals("Index 60 shares p", p, factors[60]);
+        assertEquals("Index 70 shares q", q, factors[70]);
+        assertTrue("Index 50 should be split into p or q", factors[50].equals(p) || factors[50].equals(q));
+        assertEquals("Only the planted moduli are weak", Arrays.asList(10, 50, 60, 70, 200), batchGcd.weakIndices(moduli));
+    }
+
+    @Test
+    public void testSpilledLevelsMatchInMemory() throws IOException {
+        List<BigInteger> moduli = corpusWithSharedPrimes(prime(), prime(), prime());
+        Path spill = Files.createTempDirectory("batch-gcd-test");
+        try {
+            BigInteger[] inMemory = new BatchGcd().sharedFactors(moduli);
+            BigInteger[] spilled = new BatchGcd(new ForkJoinPool(3), spill, 1024).sharedFactors(moduli);
+            assertArrayEquals("Spilling should not change the result", inMemory, spilled);
+            try (Stream<Path> leftovers = Files.list(spill)) {
+                assertEquals("Spill files should be deleted", 0, leftovers.count());
+            }
+        } finally {
+            Files.deleteIfExists(spill);
+        }
+    }
+
+    @Test
+    public void testDuplicateModulusIsReportedWhole() throws IOException {
+        BigInteger n = prime().multiply(prime());
+        BigInteger other = prime().multiply(prime());
+        BigInteger[] factors = new BatchGcd().sharedFactors(Arrays.asList(n, other, n));
+        assertArrayEquals("Duplicates share everything", new BigInteger[] {n, BigInteger.ONE, n}, factors);
+    }
+
+    @Test
+    public void testSmallBatchesMatchOneTree() throws IOException {
+        List<BigInteger> moduli = corpusWithSharedPrimes(prime(), prime(), prime());
+        // About 16 moduli per batch, so the planted pairs land in different batches
+        BatchGcd batched = new BatchGcd(ForkJoinPool.commonPool(), null, Long.MAX_VALUE, 4096);
+        BigInteger[] factors = batched.sharedFactors(moduli);
+        assertArrayEquals("Batching should not change the result", new BatchGcd().sharedFactors(moduli), factors);
+        assertEquals("Only the planted moduli are weak", Arrays.asList(10, 50, 60, 70, 200), batched.weakIndices(moduli));
+    }
+
+    @Test
+    public void testDuplicatesAreReportedWholeAcrossBatches() throws IOException {
+        BigInteger n = prime().multiply(prime());
+        List<BigInteger> moduli = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            moduli.add(i % 10 == 0 ? n : prime().multiply(prime()));
+        }
+        BigInteger[] factors = new BatchGcd(ForkJoinPool.commonPool(), null, Long.MAX_VALUE, 2048).sharedFactors(moduli);
+        for (int i = 0; i < moduli.size(); i++) {
+            assertEquals("Duplicates should be reported whole and the rest untouched at index " + i,
+                    i % 10 == 0 ? n : BigInteger.ONE, factors[i]);
+        }
+    }
+
+    @Test
+    public void testTriangleOfSharedPrimesIsSplit() throws IOException {
+        // p*q, q*r and r*p each share both primes, so no batch result is a proper factor to start from
+        BigInteger p = prime();
+        BigInteger q = prime();
+        BigInteger r = prime();
+        List<BigInteger> moduli = Arrays.asList(p.multiply(q), prime().multiply(prime()), q.multiply(r), r.multiply(p));
+        BigInteger[] factors = new BatchGcd().sharedFactors(moduli);
+        for (int i : new int[] {0, 2, 3}) {
+            BigInteger g = factors[i];
+            assertTrue("Modulus " + i + " should be split into one of its primes",
+                    !g.equals(BigInteger.ONE) && !g.equals(moduli.get(i)) && moduli.get(i).mod(g).signum() == 0);
+        }
+        assertEquals("The unrelated modulus shares nothing", BigInteger.ONE, factors[1]);
+    }
+}
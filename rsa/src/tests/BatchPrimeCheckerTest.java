@@ -0,0 +1,71 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import utils.BatchPrimeChecker;
+import utils.MillerRabin;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Test suite for {@link BatchPrimeChecker} checking that batched answers match one-at-a-time
+ * answers, stay in input order, and that the prefilter removes numbers with small factors.
+ */
+public class BatchPrimeCheckerTest {
+
+    @Test
+    public void testMatchesSingleChecksInOrder() {
+        Random random = new Random(11);
+        List<BigInteger> values = new ArrayList<>();
+        values.add(BigInteger.valueOf(-7));
+        values.add(BigInteger.ZERO);
+        values.add(BigInteger.TWO);
+        values.add(new BigInteger("18446744073709551557")); // 2^64 - 59
+        values.add(BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE));
+        values.add(BigInteger.ONE.shiftLeft(128));
+        for (int i = 0; i < 2500; i++) {
+            values.add(new BigInteger(200, random).setBit(199));
+            if (i % 10 == 0) {
+                values.add(BigInteger.probablePrime(200, random));
+            }
+        }
+
+        BatchPrimeChecker batch = new BatchPrimeChecker(new MillerRabin(), 20, new ForkJoinPool(4));
+        boolean[] results = batch.isPrimeAll(values);
+        assertEquals("One result per input", values.size(), results.length);
+        for (int i = 0; i < values.size(); i++) {
+            BigInteger value = values.get(i);
+            assertEquals("Mismatch at index " + i, value.signum() > 0 && value.isProbablePrime(50), results[i]);
+        }
+    }
+
+    @Test
+    public void testPrefilterRemovesSmallFactors() {
+        Random random = new Random(3);
+        List<BigInteger> values = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            BigInteger large = BigInteger.probablePrime(512, random);
+            values.add(large.multiply(BigInteger.valueOf(65521))); // largest prime below 2^16
+            values.add(large);
+        }
+
+        BatchPrimeChecker batch = new BatchPrimeChecker(new MillerRabin(), 20);
+        boolean[] results = batch.isPrimeAll(values);
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals("Only the unmultiplied primes should pass", i % 2 == 1, results[i]);
+        }
+        assertEquals("Every multiple of 65521 should be caught before the checker", 500, batch.prefilterRejected());
+        assertEquals("Only the primes should reach the checker", 500, batch.checked());
+    }
+
+    @Test
+    public void testEmptyBatch() {
+        assertTrue("An empty batch has no results", new BatchPrimeChecker(new MillerRabin(), 20).isPrimeAll(new ArrayList<>()).length == 0);
+    }
+}
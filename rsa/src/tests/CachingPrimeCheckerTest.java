@@ -0,0 +1,100 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import utils.CachingPrimeChecker;
+import utils.MillerRabin;
+import utils.PrimeChecker;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test suite for {@link CachingPrimeChecker} checking certainty-aware reuse, eviction and statistics.
+ */
+public class CachingPrimeCheckerTest {
+    private static final BigInteger MERSENNE_127 = BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE);
+
+    /**
+     * Counts the calls that reach the real checker.
+     */
+    private static final class CountingChecker implements PrimeChecker {
+        final AtomicInteger calls = new AtomicInteger();
+        private final PrimeChecker delegate = new MillerRabin();
+
+        @Override
+        public boolean isPrime(BigInteger n, int iterations) {
+            calls.incrementAndGet();
+            return delegate.isPrime(n, iterations);
+        }
+
+        @Override
+        public BigInteger generatePrime(int bitLength, int certainty) {
+            return delegate.generatePrime(bitLength, certainty);
+        }
+    }
+
+    @Test
+    public void testReusesVerdictOnlyUpToRecordedCertainty() {
+        CountingChecker counting = new CountingChecker();
+        CachingPrimeChecker cache = new CachingPrimeChecker(counting, 100);
+
+        assertTrue("2^127 - 1 is prime", cache.isPrime(MERSENNE_127, 20));
+        assertTrue("A cached verdict should be prime too", cache.isPrime(MERSENNE_127, 20));
+        assertTrue("A weaker request should get the cached verdict", cache.isPrime(MERSENNE_127, 10));
+        assertEquals("Weaker or equal requests should be served from the cache", 1, counting.calls.get());
+
+        assertTrue("The rechecked verdict should still be prime", cache.isPrime(MERSENNE_127, 40));
+        assertEquals("A stronger request should run the checker again", 2, counting.calls.get());
+        assertTrue("The stronger verdict should be served", cache.isPrime(MERSENNE_127, 40));
+        assertEquals("The stronger verdict should now be cached", 2, counting.calls.get());
+
+        assertEquals("Three calls should have been served from the cache", 3, cache.hits());
+        assertEquals("Two calls should have reached the checker", 2, cache.misses());
+    }
+
+    @Test
+    public void testCompositeVerdictServesAnyCertainty() {
+        CountingChecker counting = new CountingChecker();
+        CachingPrimeChecker cache = new CachingPrimeChecker(counting, 100, true);
+        BigInteger composite = MERSENNE_127.multiply(BigInteger.valueOf(65537));
+
+        assertFalse("The product should be found composite", cache.isPrime(composite, 1));
+        assertFalse("The cached composite verdict should hold at any certainty", cache.isPrime(composite, 1000));
+        assertEquals("A composite verdict is a proof and never needs rechecking", 1, counting.calls.get());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        CountingChecker counting = new CountingChecker();
+        CachingPrimeChecker cache = new CachingPrimeChecker(counting, 2);
+        BigInteger a = MERSENNE_127;
+        BigInteger b = BigInteger.ONE.shiftLeft(89).subtract(BigInteger.ONE);
+        BigInteger c = BigInteger.ONE.shiftLeft(107).subtract(BigInteger.ONE);
+
+        cache.isPrime(a, 10);
+        cache.isPrime(b, 10);
+        cache.isPrime(a, 10); // a is now more recent than b
+        cache.isPrime(c, 10); // evicts b
+        assertEquals("The cache should hold only its capacity", 2, cache.size());
+        assertEquals("Adding a third entry should evict one", 1, cache.evictions());
+
+        int before = counting.calls.get();
+        cache.isPrime(a, 10);
+        assertEquals("a should still be cached", before, counting.calls.get());
+        cache.isPrime(b, 10);
+        assertEquals("b should have been evicted", before + 1, counting.calls.get());
+    }
+
+    @Test
+    public void testGeneratedPrimesAreCached() {
+        CountingChecker counting = new CountingChecker();
+        CachingPrimeChecker cache = new CachingPrimeChecker(counting, 10);
+        BigInteger prime = cache.generatePrime(256, 20);
+        assertTrue("The generated number should be prime", cache.isPrime(prime, 20));
+        assertEquals("The generated prime should be answered from the cache", 0, counting.calls.get());
+    }
+}
@@ -0,0 +1,70 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import utils.CandidateSieve;
+import utils.MillerRabin;
+import utils.SmallPrimes;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+/**
+ * Test suite for {@link CandidateSieve} checking that every candidate has the requested
+ * bit length and no factor in the small prime table.
+ */
+public class CandidateSieveTest {
+    private final SecureRandom random = new SecureRandom();
+
+    @Test
+    public void testCandidatesHaveExactBitLength() {
+        int[] bitLengths = {2, 3, 8, 17, 64, 512};
+        for (int bitLength : bitLengths) {
+            CandidateSieve candidates = new CandidateSieve(bitLength, random);
+            for (int i = 0; i < 50; i++) {
+                BigInteger candidate = candidates.next();
+                assertEquals("Candidate should have " + bitLength + " bits", bitLength, candidate.bitLength());
+                assertTrue("Candidate should be odd", candidate.testBit(0));
+            }
+        }
+    }
+
+    @Test
+    public void testCandidatesHaveNoSmallFactor() {
+        CandidateSieve candidates = new CandidateSieve(256, random);
+        for (int i = 0; i < 200; i++) {
+            BigInteger candidate = candidates.next();
+            for (int k = 0; k < SmallPrimes.count(); k++) {
+                BigInteger p = BigInteger.valueOf(SmallPrimes.get(k));
+                assertFalse(candidate + " should not be divisible by " + p, candidate.mod(p).equals(BigInteger.ZERO));
+            }
+        }
+    }
+
+    @Test
+    public void testSmallBitLengthsStillReachSmallPrimes() {
+        // With 5 bits the candidates are 17..31, which must not be sieved by primes at or above 16
+        CandidateSieve candidates = new CandidateSieve(5, random);
+        MillerRabin millerRabin = new MillerRabin();
+        boolean sawPrime = false;
+        for (int i = 0; i < 100; i++) {
+            sawPrime |= millerRabin.isPrime(candidates.next(), 20);
+        }
+        assertTrue("Small prime candidates should be reachable", sawPrime);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testRejectsBitLengthBelowTwo() {
+        new CandidateSieve(1, random);
+    }
+
+    @Test
+    public void testGeneratedPrimesHaveExactBitLength() {
+        BigInteger prime = new MillerRabin().generatePrime(1024, 20);
+        assertEquals("Generated prime should have 1024 bits", 1024, prime.bitLength());
+        assertTrue("Generated prime should pass BigInteger's own check", prime.isProbablePrime(50));
+    }
+}
@@ -0,0 +1,113 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import utils.BailliePSW;
+import utils.Factorizer;
+import utils.MillerRabin;
+import utils.RandomSource;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Test suite for {@link Factorizer} checking that each stage finds the factors it is designed for.
+ */
+public class FactorizerTest {
+    private final Factorizer factorizer = new Factorizer(new ForkJoinPool(4), new BailliePSW(),
+            RandomSource.perThread(SecureRandom::new), 2);
+    private final MillerRabin millerRabin = new MillerRabin();
+
+    private static BigInteger product(List<BigInteger> factors) {
+        return factors.stream().reduce(BigInteger.ONE, BigInteger::multiply);
+    }
+
+    @Test
+    public void testSmallFactors() {
+        assertTrue("1 has no prime factors", factorizer.factor(BigInteger.ONE).primes().isEmpty());
+
+        BigInteger n = BigInteger.valueOf(2).pow(10).multiply(BigInteger.valueOf(3).pow(5)).multiply(BigInteger.valueOf(65521));
+        Factorizer.Factorization result = factorizer.factor(n);
+        assertTrue("Trial division alone should factor n completely", result.complete());
+        assertEquals("2^10 * 3^5 * 65521 has 16 prime factors", 16, result.primes().size());
+        assertEquals("The factors should multiply back to n", n, product(result.primes()));
+        assertEquals("The largest table prime should be found last", BigInteger.valueOf(65521), result.primes().get(15));
+
+        assertEquals("Trial division should return the smallest factor", BigInteger.valueOf(3), factorizer.trialDivision(BigInteger.valueOf(3L * 1_000_003)));
+    }
+
+    @Test
+    public void testPollardRho() {
+        // Both sides of 62 bits, so the long and BigInteger loops are each exercised
+        for (int bits : new int[] {30, 36}) {
+            BigInteger p = millerRabin.generatePrime(bits, 40);
+            BigInteger q = millerRabin.generatePrime(bits, 40);
+            BigInteger n = p.multiply(q);
+            BigInteger factor = factorizer.pollardRho(n, 1L << 22);
+            assertNotNull("rho should split a product of two " + bits + "-bit primes", factor);
+            assertTrue("rho should return one of the two primes", factor.equals(p) || factor.equals(q));
+
+            Factorizer.Factorization result = factorizer.factor(n);
+            assertEquals("factor should return both primes in ascending order", Arrays.asList(p.min(q), p.max(q)), result.primes());
+        }
+    }
+
+    @Test
+    public void testPollardPMinus1FindsSmoothFactor() {
+        Random random = new Random(7);
+        BigInteger p;
+        do {
+            // p - 1 = 2 * (primes below 1000)
+            BigInteger m = BigInteger.TWO;
+            while (m.bitLength() < 80) {
+                m = m.multiply(BigInteger.valueOf(millerRabin.nextProbablePrime(BigInteger.valueOf(random.nextInt(1000)), 20).longValue()));
+            }
+            p = m.add(BigInteger.ONE);
+        } while (!p.isProbablePrime(50));
+        BigInteger q = millerRabin.generatePrime(128, 40);
+
+        assertEquals("p - 1 should find the prime whose p - 1 is smooth", p, factorizer.pollardPMinus1(p.multiply(q), 1000));
+    }
+
+    @Test
+    public void testEcmFindsMediumFactor() {
+        BigInteger p = millerRabin.generatePrime(56, 40);
+        BigInteger q = millerRabin.generatePrime(160, 40);
+        BigInteger factor = factorizer.ecm(p.multiply(q), 11_000, 400);
+        assertEquals("ECM should find the 56-bit factor", p, factor);
+    }
+
+    @Test
+    public void testPerfectPower() {
+        BigInteger p = millerRabin.generatePrime(100, 40);
+        Factorizer.Factorization result = factorizer.factor(p.pow(3));
+        assertEquals("A cube should factor into three copies of its root", Arrays.asList(p, p, p), result.primes());
+    }
+
+    @Test
+    public void testSmallestPerfectPowerPastTrialDivision() {
+        // 65537 is the first prime trial division leaves, so its square sits right at the exponent bound
+        BigInteger p = BigInteger.valueOf(65537);
+        Factorizer.Factorization result = factorizer.factor(p.pow(2));
+        assertEquals("65537^2 should factor into two copies of 65537", Arrays.asList(p, p), result.primes());
+    }
+
+    @Test
+    public void testGivesUpOnHardComposite() {
+        Factorizer noEcm = new Factorizer(ForkJoinPool.commonPool(), new BailliePSW(), RandomSource.shared(), 0);
+        BigInteger p = millerRabin.generatePrime(256, 40);
+        BigInteger q = millerRabin.generatePrime(256, 40);
+        Factorizer.Factorization result = noEcm.factor(BigInteger.valueOf(12).multiply(p).multiply(q));
+        assertFalse("Without ECM the 512-bit cofactor should stay unsplit", result.complete());
+        assertEquals("The small factors should still be found", Arrays.asList(BigInteger.TWO, BigInteger.TWO, BigInteger.valueOf(3)), result.primes());
+        assertEquals("The hard cofactor should be reported as a composite", Arrays.asList(p.multiply(q)), result.composites());
+    }
+}
@@ -0,0 +1,107 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import utils.KeyPairPipeline;
+import utils.MillerRabin;
+import utils.PrimePool;
+import utils.RSAKeyPair;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test suite for {@link PrimePool}, {@link KeyPairPipeline} and {@link RSAKeyPair}.
+ */
+public class KeyPairPipelineTest {
+
+    @Test
+    public void testKeyPairFromKnownPrimes() {
+        // The textbook example: p = 61, q = 53, e = 17
+        RSAKeyPair keyPair = RSAKeyPair.fromPrimes(BigInteger.valueOf(61), BigInteger.valueOf(53), BigInteger.valueOf(17));
+        assertEquals("n should be 3233", BigInteger.valueOf(3233), keyPair.getModulus());
+        assertEquals("d should be 413 modulo lambda(n) = 780", BigInteger.valueOf(413), keyPair.getPrivateExponent());
+        assertEquals("dp should be 53", BigInteger.valueOf(53), keyPair.getDp());
+        assertEquals("dq should be 49", BigInteger.valueOf(49), keyPair.getDq());
+        assertEquals("qInv should be 38", BigInteger.valueOf(38), keyPair.getQInv());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKeyPairRejectsExponentSharingFactor() {
+        // lambda(3233) = 780 is divisible by 3
+        RSAKeyPair.fromPrimes(BigInteger.valueOf(61), BigInteger.valueOf(53), BigInteger.valueOf(3));
+    }
+
+    @Test
+    public void testShortPairsAreGivenBackWhole() throws InterruptedException {
+        // 17 * 19 = 323 is one bit short of 10 bits; 23 * 29 = 667 is not
+        Deque<BigInteger> draws = new ArrayDeque<>(Arrays.asList(BigInteger.valueOf(17), BigInteger.valueOf(19),
+                BigInteger.valueOf(23), BigInteger.valueOf(29)));
+        List<BigInteger> givenBack = new ArrayList<>();
+        RSAKeyPair keyPair = RSAKeyPair.fromPrimeSource(10, BigInteger.valueOf(5), new RSAKeyPair.PrimeSource() {
+            @Override
+            public BigInteger next(int bitLength) {
+                return draws.removeFirst();
+            }
+
+            @Override
+            public void giveBack(int bitLength, BigInteger prime) {
+                givenBack.add(prime);
+            }
+        });
+        assertEquals("n should be 23 * 29", BigInteger.valueOf(667), keyPair.getModulus());
+        assertEquals("Both primes of the short pair should be given back",
+                Arrays.asList(BigInteger.valueOf(17), BigInteger.valueOf(19)), givenBack);
+    }
+
+    @Test
+    public void testPoolRefillsAndReportsStats() throws InterruptedException {
+        try (PrimePool pool = new PrimePool(new MillerRabin(), 20, 4, 1, 128, 256)) {
+            pool.start();
+            BigInteger small = pool.poll(128, 30, TimeUnit.SECONDS);
+            BigInteger large = pool.poll(256, 30, TimeUnit.SECONDS);
+            assertNotNull("A 128-bit prime should arrive", small);
+            assertNotNull("A 256-bit prime should arrive", large);
+            assertEquals("Pooled prime should have 128 bits", 128, small.bitLength());
+            assertTrue("Pooled prime should be prime", large.isProbablePrime(50));
+
+            PrimePool.Stats stats = pool.stats(128);
+            assertEquals("One prime should have been consumed", 1, stats.consumed());
+            assertTrue("Available primes should never exceed capacity", stats.available() <= 4);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPoolRejectsUnconfiguredBitLength() throws InterruptedException {
+        try (PrimePool pool = new PrimePool(new MillerRabin(), 20, 4, 1, 128)) {
+            pool.take(512);
+        }
+    }
+
+    @Test
+    public void testPipelineProducesValidKeyPairs() throws InterruptedException {
+        try (PrimePool pool = new PrimePool(new MillerRabin(), 20, 8, 2, 256);
+             KeyPairPipeline pipeline = new KeyPairPipeline(pool, 512, RSAKeyPair.DEFAULT_PUBLIC_EXPONENT, 2, 1)) {
+            pool.start();
+            pipeline.start();
+            for (int i = 0; i < 3; i++) {
+                RSAKeyPair keyPair = pipeline.poll(60, TimeUnit.SECONDS);
+                assertNotNull("A key pair should be assembled", keyPair);
+                assertEquals("Modulus should have exactly 512 bits", 512, keyPair.getModulus().bitLength());
+
+                BigInteger message = BigInteger.valueOf(42 + i);
+                BigInteger cipher = message.modPow(keyPair.getPublicExponent(), keyPair.getModulus());
+                assertEquals("Decryption should invert encryption", message,
+                        cipher.modPow(keyPair.getPrivateExponent(), keyPair.getModulus()));
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import utils.LongPrimality;
+import utils.MillerRabin;
+import utils.TrialDivision;
+
+import java.math.BigInteger;
+import java.util.SplittableRandom;
+
+/**
+ * Test suite for {@link LongPrimality}, the exact primitive path used for numbers below 2^64.
+ */
+public class LongPrimalityTest {
+
+    @Test
+    public void testAgreesWithBigIntegerForSmallRange() {
+        for (long n = 0; n < 200_000; n++) {
+            assertEquals("Mismatch at " + n, BigInteger.valueOf(n).isProbablePrime(50), LongPrimality.isPrime(n));
+        }
+    }
+
+    @Test
+    public void testAgreesWithBigIntegerForRandom64BitValues() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 20_000; i++) {
+            long n = random.nextLong() | 1;
+            BigInteger unsigned = new BigInteger(Long.toUnsignedString(n));
+            assertEquals("Mismatch at " + unsigned, unsigned.isProbablePrime(50), LongPrimality.isPrimeUnsigned(n));
+        }
+    }
+
+    @Test
+    public void testKnownHardCases() {
+        assertFalse("-7 should not be prime", LongPrimality.isPrime(-7));
+        // Strong pseudoprime to every base up to 23, caught only by the larger bases
+        assertFalse("3825123056546413051 should not be prime", LongPrimality.isPrime(3825123056546413051L));
+        assertFalse("Carmichael number 561 should not be prime", LongPrimality.isPrime(561));
+        assertTrue("2^61 - 1 should be prime", LongPrimality.isPrime((1L << 61) - 1));
+        assertTrue("Largest signed 64-bit prime should be prime", LongPrimality.isPrime(9223372036854775783L));
+        // 2^64 - 59 is the largest unsigned 64-bit prime
+        assertTrue("2^64 - 59 should be prime", LongPrimality.isPrimeUnsigned(-59L));
+        assertFalse("2^64 - 1 should not be prime", LongPrimality.isPrimeUnsigned(-1L));
+    }
+
+    @Test
+    public void testCheckersDispatchToFastPath() {
+        BigInteger largest = new BigInteger("18446744073709551557"); // 2^64 - 59
+        assertTrue("MillerRabin should accept 2^64 - 59", new MillerRabin().isPrime(largest, 1));
+        // Trial division up to sqrt(2^64) would not finish without the fast path
+        assertTrue("TrialDivision should accept 2^64 - 59", new TrialDivision().isPrime(largest, 0));
+        assertFalse("TrialDivision should reject 2^64 - 57", new TrialDivision().isPrime(largest.add(BigInteger.TWO), 0));
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.platform.commons.logging.LoggerFactory;
 import org.junit.Test;
 
 import utils.MillerRabin;
+import utils.MillerRabinContext;
 import utils.PrimeChecker;
 
 import java.math.BigInteger;
@@ -86,6 +87,32 @@ public class MillerRabinTest {
         assertTrue("7 should be prime with 9000 iterations", millerRabinChecker.isPrime(new BigInteger("7"), 9000));
     }
 
+    /**
+     * Tests single witness rounds through a precomputed context.
+     * 2047 = 23 * 89 is the smallest strong pseudoprime to base 2, so only a different witness exposes it.
+     */
+    @Test
+    public void testContextWitnessRounds() {
+        MillerRabinContext context = new MillerRabinContext(new BigInteger("2047"));
+        assertTrue("2047 should pass a base 2 round", context.passes(BigInteger.TWO));
+        assertFalse("2047 should fail a base 3 round", context.passes(BigInteger.valueOf(3)));
+
+        MillerRabinContext primeContext = new MillerRabinContext(new BigInteger("68078235559159578833"));
+        for (int i = 0; i < 20; i++) {
+            assertTrue("A prime should pass every round", primeContext.passes(primeContext.randomWitness()));
+        }
+    }
+
+    /**
+     * Tests that Carmichael numbers, which fool Fermat's test for coprime bases, are rejected.
+     */
+    @Test
+    public void testCarmichaelNumbers() {
+        assertFalse("561 should not be prime", millerRabinChecker.isPrime(new BigInteger("561"), 40));
+        assertFalse("41041 should not be prime", millerRabinChecker.isPrime(new BigInteger("41041"), 40));
+        assertFalse("825265 should not be prime", millerRabinChecker.isPrime(new BigInteger("825265"), 40));
+    }
+
     /**
      * Benchmark test to measure the performance of the isPrime method across various numbers.
      * Utilizes a fixed number of iterations for the Miller-Rabin test and logs the time taken for each test.
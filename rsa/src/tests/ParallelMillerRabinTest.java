@@ -0,0 +1,51 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import utils.ParallelMillerRabin;
+import utils.PrimeChecker;
+
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Test suite for {@link ParallelMillerRabin} checking that spreading rounds and candidate
+ * searches over a pool gives the same answers as the sequential checker.
+ */
+public class ParallelMillerRabinTest {
+    private final PrimeChecker parallelChecker = new ParallelMillerRabin(new ForkJoinPool(4));
+
+    @Test
+    public void testSmallNumbers() {
+        assertTrue("2 should be prime", parallelChecker.isPrime(new BigInteger("2"), 40));
+        assertTrue("7 should be prime", parallelChecker.isPrime(new BigInteger("7"), 40));
+        assertFalse("1 should not be prime", parallelChecker.isPrime(BigInteger.ONE, 40));
+        assertFalse("561 should not be prime", parallelChecker.isPrime(new BigInteger("561"), 40));
+    }
+
+    @Test
+    public void testLargeNumbersAboveParallelThreshold() {
+        // 2^521 - 1 is a Mersenne prime
+        BigInteger mersenne = BigInteger.ONE.shiftLeft(521).subtract(BigInteger.ONE);
+        assertTrue("2^521 - 1 should be prime", parallelChecker.isPrime(mersenne, 40));
+        assertFalse("2^521 + 1 should not be prime", parallelChecker.isPrime(mersenne.add(BigInteger.TWO), 40));
+    }
+
+    @Test
+    public void testGeneratePrime() {
+        BigInteger prime = parallelChecker.generatePrime(1024, 20);
+        assertEquals("Generated prime should have 1024 bits", 1024, prime.bitLength());
+        assertTrue("Generated prime should pass BigInteger's own check", prime.isProbablePrime(50));
+    }
+
+    @Test
+    public void testGenerateTinyPrime() {
+        for (int i = 0; i < 20; i++) {
+            BigInteger prime = parallelChecker.generatePrime(2, 10);
+            assertEquals("The only odd 2-bit prime is 3", BigInteger.valueOf(3), prime);
+        }
+    }
+}
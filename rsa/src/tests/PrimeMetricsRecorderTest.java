@@ -0,0 +1,78 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import utils.BailliePSW;
+import utils.MillerRabin;
+import utils.PrimeMetricsRecorder;
+import utils.RandomSource;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Test suite for {@link PrimeMetricsRecorder} checking that instrumented checkers report counters and latencies.
+ */
+public class PrimeMetricsRecorderTest {
+
+    @Test
+    public void testMillerRabinReportsGeneration() {
+        PrimeMetricsRecorder recorder = new PrimeMetricsRecorder();
+        MillerRabin checker = new MillerRabin(RandomSource.shared(), RandomSource.shared(), recorder);
+        for (int i = 0; i < 5; i++) {
+            checker.generatePrime(256, 10);
+        }
+
+        assertEquals("Every generatePrime call should be counted", 5, recorder.getGeneratePrimeCalls());
+        assertTrue("Every candidate is tested once", recorder.getIsPrimeCalls() >= 5);
+        assertEquals("Every drawn candidate should reach isPrime", recorder.getIsPrimeCalls(), recorder.getCandidatesDrawn());
+        assertTrue("Each prime runs all its witness rounds", recorder.getWitnessRounds() >= 50);
+        assertTrue("Time spent in modPow should be recorded", recorder.getModPowNanos() > 0);
+
+        Map<String, Long> rejected = recorder.getRejectedByStage();
+        assertTrue("Sieved-out candidates should be reported", rejected.containsKey("sieve"));
+        assertEquals("Every candidate but the five primes should fail Miller-Rabin", recorder.getCandidatesDrawn() - 5, (long) rejected.getOrDefault("millerRabin", 0L));
+
+        long p50 = recorder.getGeneratePrimeP50Nanos().get(256);
+        long p99 = recorder.getGeneratePrimeP99Nanos().get(256);
+        assertTrue("The median generation time should be recorded", p50 > 0);
+        assertTrue("p99 should not be below the median", p99 >= p50);
+    }
+
+    @Test
+    public void testBailliePSWReportsRejectionStage() {
+        PrimeMetricsRecorder recorder = new PrimeMetricsRecorder();
+        BailliePSW checker = new BailliePSW(RandomSource.shared(), recorder);
+        BigInteger mersenne = BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE);
+
+        assertTrue("2^127 - 1 is prime", checker.isPrime(mersenne, 1));
+        checker.isPrime(mersenne.multiply(BigInteger.valueOf(65537)), 1);
+
+        assertEquals("Both calls should be counted", 2, recorder.getIsPrimeCalls());
+        assertEquals("The composite should be rejected by the base-2 Miller-Rabin stage", 1L, (long) recorder.getRejectedByStage().get("millerRabin"));
+
+        recorder.reset();
+        assertEquals("reset should clear the counters", 0, recorder.getIsPrimeCalls());
+        assertTrue("reset should clear the rejection stages", recorder.getRejectedByStage().isEmpty());
+    }
+
+    @Test
+    public void testRegistersWithPlatformMBeanServer() throws Exception {
+        PrimeMetricsRecorder recorder = new PrimeMetricsRecorder();
+        new MillerRabin(RandomSource.shared(), RandomSource.shared(), recorder).generatePrime(128, 5);
+
+        ObjectName name = recorder.registerMBean("PrimeMetricsRecorderTest");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals("The MBean should expose the recorder's counters", 1L, server.getAttribute(name, "GeneratePrimeCalls"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
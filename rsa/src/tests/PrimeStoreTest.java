@@ -0,0 +1,162 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import utils.MillerRabin;
+import utils.PrimePool;
+import utils.PrimeStore;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Test suite for {@link PrimeStore} checking persistence, consume-once, certainty filtering and checksums.
+ */
+public class PrimeStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MillerRabin millerRabin = new MillerRabin();
+
+    @Test
+    public void testPrimesSurviveReopenAndAreTakenOnce() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        Set<BigInteger> stored = new HashSet<>();
+        try (PrimeStore store = new PrimeStore(directory)) {
+            // More than the initial capacity, so the file has to grow
+            for (int i = 0; i < 100; i++) {
+                BigInteger prime = millerRabin.generatePrime(256, 20);
+                stored.add(prime);
+                store.append(prime, 20);
+            }
+            for (int i = 0; i < 3; i++) {
+                store.append(millerRabin.generatePrime(512, 20), 20);
+            }
+            assertEquals("Every appended 256-bit prime should be available", 100, store.available(256));
+            for (int i = 0; i < 40; i++) {
+                assertTrue("Each polled prime should be one that was stored", stored.remove(store.poll(256, 20)));
+            }
+        }
+
+        try (PrimeStore store = new PrimeStore(directory)) {
+            assertEquals("Taken primes should stay taken after a restart", 60, store.available(256));
+            assertEquals("Other bit lengths should be kept in their own file", 3, store.available(512));
+            BigInteger prime;
+            while ((prime = store.poll(256, 20)) != null) {
+                assertTrue("Each prime should be handed out once", stored.remove(prime));
+            }
+            assertTrue("Every stored prime should have been handed out", stored.isEmpty());
+            assertEquals("Nothing should be left once the store is drained", 0, store.available(256));
+        }
+    }
+
+    @Test
+    public void testLowerCertaintyEntriesAreLeft() throws IOException {
+        try (PrimeStore store = new PrimeStore(folder.getRoot().toPath())) {
+            BigInteger weak = millerRabin.generatePrime(128, 5);
+            BigInteger strong = millerRabin.generatePrime(128, 40);
+            store.append(weak, 5);
+            store.append(strong, 40);
+
+            assertEquals("Only the prime stored at certainty 40 should qualify", strong, store.poll(128, 40));
+            assertNull("The low-certainty prime should not be handed out at 40", store.poll(128, 40));
+            assertEquals("The low-certainty prime should still be there for a weaker request", weak, store.poll(128, 1));
+        }
+    }
+
+    @Test
+    public void testCorruptRecordsAreSkipped() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        BigInteger second = millerRabin.generatePrime(64, 20);
+        try (PrimeStore store = new PrimeStore(directory)) {
+            store.append(millerRabin.generatePrime(64, 20), 20);
+            store.append(second, 20);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("primes-64.bin").toFile(), "rw")) {
+            // Flip a bit in the first record's value: 16-byte header, then state, certainty and checksum
+            file.seek(16 + 9 + 3);
+            int b = file.read();
+            file.seek(16 + 9 + 3);
+            file.write(b ^ 1);
+        }
+        try (PrimeStore store = new PrimeStore(directory)) {
+            assertEquals("The corrupt record should be skipped", second, store.poll(64, 20));
+            assertEquals("The corrupt record should be counted", 1, store.corrupted(64));
+            assertNull("The corrupt record should never be handed out", store.poll(64, 20));
+        }
+    }
+
+    @Test
+    public void testUnknownStateIsCorrupt() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        BigInteger second = millerRabin.generatePrime(64, 20);
+        try (PrimeStore store = new PrimeStore(directory)) {
+            store.append(millerRabin.generatePrime(64, 20), 20);
+            store.append(second, 20);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("primes-64.bin").toFile(), "rw")) {
+            // The first record's state byte follows the 16-byte header; it is not covered by the checksum
+            file.seek(16);
+            file.write(7);
+        }
+        try (PrimeStore store = new PrimeStore(directory)) {
+            assertEquals("A record with an unknown state should be counted as corrupt", 1, store.corrupted(64));
+            assertEquals("Only the intact record should be available", 1, store.available(64));
+            assertEquals("The intact record should still be handed out", second, store.poll(64, 20));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testFileIsHeldByOneStore() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (PrimeStore first = new PrimeStore(directory); PrimeStore second = new PrimeStore(directory)) {
+            first.append(BigInteger.valueOf(65537), 20);
+            second.append(BigInteger.valueOf(65539), 20);
+        }
+    }
+
+    @Test
+    public void testDrainToPool() throws IOException {
+        try (PrimeStore store = new PrimeStore(folder.getRoot().toPath());
+                PrimePool pool = new PrimePool(millerRabin, 20, 4, 1, 256)) {
+            for (int i = 0; i < 6; i++) {
+                store.append(millerRabin.generatePrime(256, 20), 20);
+            }
+            assertEquals("Only as many primes as the pool holds should move", 4, store.drainTo(pool, 256, 20));
+            assertEquals("The pool should be full", 4, pool.stats(256).available());
+            assertEquals("The prime the full pool turned away should be back in the store", 2, store.available(256));
+        }
+    }
+
+    @Test
+    public void testDrainToFullPoolKeepsStoredCertainty() throws IOException {
+        try (PrimeStore store = new PrimeStore(folder.getRoot().toPath());
+                PrimePool pool = new PrimePool(millerRabin, 20, 1, 1, 256)) {
+            BigInteger first = millerRabin.generatePrime(256, 64);
+            BigInteger second = millerRabin.generatePrime(256, 64);
+            store.append(first, 64);
+            store.append(second, 64);
+            long fileSize = folder.getRoot().toPath().resolve("primes-256.bin").toFile().length();
+
+            assertEquals("The first drain should fill the pool", 1, store.drainTo(pool, 256, 20));
+            // More drains than the file's initial capacity, so appending a copy each time would grow it
+            for (int i = 0; i < 100; i++) {
+                assertEquals("A full pool should take nothing", 0, store.drainTo(pool, 256, 20));
+            }
+            assertEquals("The turned-away prime should be available again", 1, store.available(256));
+            assertEquals("Turned-away primes should not be appended again",
+                    fileSize, folder.getRoot().toPath().resolve("primes-256.bin").toFile().length());
+            assertEquals("The prime should still carry the certainty it was stored with", second, store.poll(256, 64));
+            assertNull("The prime should not be in the store twice", store.poll(256, 20));
+        }
+    }
+}
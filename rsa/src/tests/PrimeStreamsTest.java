@@ -0,0 +1,60 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import utils.MillerRabin;
+import utils.PrimeStreams;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Test suite for {@link PrimeStreams} checking the random and sequential prime streams.
+ */
+public class PrimeStreamsTest {
+    private final MillerRabin millerRabin = new MillerRabin();
+
+    @Test
+    public void testPrimesAfterMatchesNextProbablePrime() {
+        List<BigInteger> walked = PrimeStreams.primesAfter(millerRabin, BigInteger.ZERO, 20).limit(100)
+                .collect(Collectors.toList());
+        BigInteger expected = BigInteger.ONE;
+        for (BigInteger prime : walked) {
+            expected = expected.nextProbablePrime();
+            assertEquals("The walk from 0 should match BigInteger.nextProbablePrime", expected, prime);
+        }
+
+        BigInteger seed = BigInteger.ONE.shiftLeft(200);
+        List<BigInteger> large = PrimeStreams.primesAfter(millerRabin, seed, 20).limit(5).collect(Collectors.toList());
+        for (BigInteger prime : large) {
+            seed = seed.nextProbablePrime();
+            assertEquals("The walk above 2^200 should match BigInteger.nextProbablePrime", seed, prime);
+        }
+    }
+
+    @Test
+    public void testNextProbablePrime() {
+        assertEquals("The first prime after a negative seed is 2", BigInteger.TWO, millerRabin.nextProbablePrime(BigInteger.valueOf(-5), 20));
+        assertEquals("The prime after 2 is 3", BigInteger.valueOf(3), millerRabin.nextProbablePrime(BigInteger.TWO, 20));
+        assertEquals("The prime after 65521 is 65537", BigInteger.valueOf(65537), millerRabin.nextProbablePrime(BigInteger.valueOf(65521), 20));
+        BigInteger mersenne = BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE);
+        assertEquals("The walk should land on 2^127 - 1", mersenne, millerRabin.nextProbablePrime(mersenne.subtract(BigInteger.TWO), 20));
+    }
+
+    @Test
+    public void testParallelRandomPrimes() {
+        List<BigInteger> primes = PrimeStreams.randomPrimes(millerRabin, 256, 20, 64).parallel()
+                .collect(Collectors.toList());
+        assertEquals("A sized stream should yield exactly its count", 64, primes.size());
+        assertEquals("Independent searches should not repeat a prime", 64, primes.stream().distinct().count());
+        for (BigInteger prime : primes) {
+            assertEquals("Every prime should have 256 bits", 256, prime.bitLength());
+            assertTrue("Every element should be prime", prime.isProbablePrime(50));
+        }
+
+        assertEquals("An unsized stream should honour limit in parallel", 10, PrimeStreams.randomPrimes(millerRabin, 128, 20).parallel().limit(10).count());
+    }
+}
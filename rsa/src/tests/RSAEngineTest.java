@@ -0,0 +1,79 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import utils.MillerRabin;
+import utils.RSAEngine;
+import utils.RSAKeyPair;
+
+import java.math.BigInteger;
+
+/**
+ * Test suite for {@link RSAEngine} checking the CRT private-key path against plain
+ * exponentiation with d, with and without blinding.
+ */
+public class RSAEngineTest {
+    private static final RSAKeyPair keyPair = newKeyPair(1024);
+
+    private static RSAKeyPair newKeyPair(int modulusBits) {
+        MillerRabin millerRabin = new MillerRabin();
+        while (true) {
+            BigInteger p = millerRabin.generatePrime(modulusBits / 2, 20);
+            BigInteger q = millerRabin.generatePrime(modulusBits / 2, 20);
+            try {
+                return RSAKeyPair.fromPrimes(p, q, RSAKeyPair.DEFAULT_PUBLIC_EXPONENT);
+            } catch (IllegalArgumentException e) {
+                // e shared a factor with p - 1 or q - 1, draw again
+            }
+        }
+    }
+
+    @Test
+    public void testCrtMatchesPlainExponentiation() {
+        RSAEngine engine = new RSAEngine(keyPair, false, false);
+        BigInteger message = new BigInteger("123456789012345678901234567890");
+        BigInteger expected = message.modPow(keyPair.getPrivateExponent(), keyPair.getModulus());
+        assertEquals("CRT signature should equal m^d mod n", expected, engine.sign(message));
+    }
+
+    @Test
+    public void testEncryptDecryptRoundTrip() {
+        RSAEngine engine = new RSAEngine(keyPair);
+        BigInteger[] messages = {
+            BigInteger.ZERO,
+            BigInteger.ONE,
+            BigInteger.valueOf(65537),
+            keyPair.getP(), // shares a factor with n, still round-trips
+            keyPair.getModulus().subtract(BigInteger.ONE)
+        };
+        for (BigInteger message : messages) {
+            assertEquals("Decrypt should invert encrypt", message, engine.decrypt(engine.encrypt(message)));
+        }
+    }
+
+    @Test
+    public void testBlindedSignatureIsDeterministic() {
+        RSAEngine blinded = new RSAEngine(keyPair, true, true);
+        RSAEngine plain = new RSAEngine(keyPair, false, false);
+        BigInteger message = BigInteger.valueOf(987654321);
+        assertEquals("Blinding should not change the signature", plain.sign(message), blinded.sign(message));
+    }
+
+    @Test
+    public void testVerify() {
+        RSAEngine engine = new RSAEngine(keyPair);
+        BigInteger message = BigInteger.valueOf(42);
+        BigInteger signature = engine.sign(message);
+        assertTrue("Signature should verify", engine.verify(message, signature));
+        assertFalse("Signature should not verify another message", engine.verify(BigInteger.valueOf(43), signature));
+        assertFalse("Out of range signature should not verify", engine.verify(message, keyPair.getModulus()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsOutOfRangeInput() {
+        new RSAEngine(keyPair).decrypt(keyPair.getModulus());
+    }
+}
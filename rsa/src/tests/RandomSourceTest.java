@@ -0,0 +1,85 @@
+package tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import utils.BufferedRandom;
+import utils.Fermats;
+import utils.MillerRabin;
+import utils.PrimeChecker;
+import utils.RandomSource;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Test suite for {@link RandomSource} and {@link BufferedRandom}, the pluggable randomness
+ * behind candidate and witness draws.
+ */
+public class RandomSourceTest {
+
+    @Test
+    public void testBufferedRandomReplaysDelegateBytes() {
+        byte[] expected = new byte[1000];
+        new Random(5).nextBytes(expected);
+
+        BufferedRandom buffered = new BufferedRandom(new Random(5), 64);
+        byte[] actual = new byte[1000];
+        int offset = 0;
+        int[] chunks = {1, 7, 63, 64, 65, 200, 600};
+        for (int chunk : chunks) {
+            byte[] part = new byte[chunk];
+            buffered.nextBytes(part);
+            System.arraycopy(part, 0, actual, offset, chunk);
+            offset += chunk;
+        }
+        assertArrayEquals("Buffered bytes should be the delegate's bytes in order", expected, actual);
+    }
+
+    @Test
+    public void testBufferedRandomStaysInRange() {
+        BufferedRandom buffered = new BufferedRandom(new SecureRandom(), 256);
+        BigInteger max = new BigInteger("1000000007");
+        for (int i = 0; i < 1000; i++) {
+            BigInteger value = PrimeChecker.getRandomBigIntegerInRange(BigInteger.TWO, max, buffered);
+            assertTrue("Value should be in [2, max]", value.compareTo(BigInteger.TWO) >= 0 && value.compareTo(max) <= 0);
+            int bounded = buffered.nextInt(10);
+            assertTrue("nextInt should respect its bound", bounded >= 0 && bounded < 10);
+        }
+    }
+
+    @Test
+    public void testPerThreadSourceGivesEachThreadItsOwnGenerator() throws InterruptedException {
+        RandomSource source = RandomSource.perThread(SecureRandom::new);
+        Random mine = source.get();
+        assertSame("The same thread should keep its generator", mine, source.get());
+
+        AtomicReference<Random> theirs = new AtomicReference<>();
+        Thread thread = new Thread(() -> theirs.set(source.get()));
+        thread.start();
+        thread.join();
+        assertNotSame("Another thread should get its own generator", mine, theirs.get());
+    }
+
+    @Test
+    public void testCheckersWithInjectedSources() {
+        RandomSource candidates = RandomSource.buffered(SecureRandom::new, 4096);
+        RandomSource witnesses = ThreadLocalRandom::current;
+        PrimeChecker millerRabin = new MillerRabin(candidates, witnesses);
+        PrimeChecker fermats = new Fermats(candidates, witnesses);
+
+        BigInteger prime = millerRabin.generatePrime(512, 20);
+        assertEquals("Generated prime should have 512 bits", 512, prime.bitLength());
+        assertTrue("Generated prime should pass BigInteger's own check", prime.isProbablePrime(50));
+        assertTrue("Fermat's test should accept the prime", fermats.isPrime(prime, 20));
+        assertFalse("A semiprime should be rejected", millerRabin.isPrime(prime.multiply(fermats.generatePrime(256, 20)), 20));
+    }
+}
@@ -0,0 +1,55 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import utils.SafePrimeGenerator;
+
+import java.math.BigInteger;
+
+/**
+ * Test suite for {@link SafePrimeGenerator} checking that generated primes have prime halves.
+ */
+public class SafePrimeGeneratorTest {
+    private final SafePrimeGenerator generator = new SafePrimeGenerator();
+
+    @Test
+    public void testSmallSafePrimes() {
+        int[] safe = {5, 7, 11, 23, 47, 59, 83, 107, 167, 179};
+        for (int p : safe) {
+            assertTrue(p + " should be a safe prime", generator.isPrime(BigInteger.valueOf(p), 20));
+        }
+        int[] notSafe = {2, 3, 13, 17, 19, 29, 31, 15, 21};
+        for (int n : notSafe) {
+            assertFalse(n + " should not be a safe prime", generator.isPrime(BigInteger.valueOf(n), 20));
+        }
+    }
+
+    @Test
+    public void testLargeSafePrime() {
+        // 2^255 - 19 is prime but (p - 1) / 2 is even
+        BigInteger p25519 = BigInteger.ONE.shiftLeft(255).subtract(BigInteger.valueOf(19));
+        assertFalse("2^255 - 19 should not be a safe prime", generator.isPrime(p25519, 20));
+    }
+
+    @Test
+    public void testGenerateSmallBitLengths() {
+        for (int bits = 3; bits <= 64; bits++) {
+            BigInteger p = generator.generatePrime(bits, 20);
+            assertEquals("Generated safe prime should have " + bits + " bits", bits, p.bitLength());
+            assertTrue(p + " should be prime", p.isProbablePrime(50));
+            assertTrue(p + " should have a prime half", p.shiftRight(1).isProbablePrime(50));
+        }
+    }
+
+    @Test
+    public void testGenerateSafePrime() {
+        BigInteger p = generator.generatePrime(512, 20);
+        assertEquals("Generated prime should have 512 bits", 512, p.bitLength());
+        assertTrue("Generated number should be prime", p.isProbablePrime(50));
+        assertTrue("(p - 1) / 2 should be prime", p.shiftRight(1).isProbablePrime(50));
+        assertTrue("The generator should accept its own safe prime", generator.isPrime(p, 20));
+    }
+}
@@ -0,0 +1,64 @@
+package tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+
+import utils.LongPrimality;
+import utils.SegmentedSieve;
+
+import java.util.PrimitiveIterator;
+import java.util.stream.LongStream;
+
+/**
+ * Test suite for {@link SegmentedSieve} checking prime counts against known values of pi(x)
+ * and ranges that cross segment boundaries against {@link LongPrimality}.
+ */
+public class SegmentedSieveTest {
+
+    @Test
+    public void testFirstPrimes() {
+        long[] expected = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29};
+        assertArrayEquals("First ten primes", expected, SegmentedSieve.primes(0, 30).toArray());
+        assertArrayEquals("Range bounds should be [from, to)", new long[] {5, 7}, SegmentedSieve.primes(5, 11).toArray());
+        assertEquals("Empty range should have no primes", 0, SegmentedSieve.primes(24, 29).count());
+    }
+
+    @Test
+    public void testKnownPrimeCounts() {
+        assertEquals("pi(10^6)", 78498, SegmentedSieve.count(0, 1_000_000, false));
+        assertEquals("pi(10^7)", 664579, SegmentedSieve.primes(0, 10_000_000).count());
+        assertEquals("pi(10^8) sieved in parallel", 5761455, SegmentedSieve.count(0, 100_000_000, true));
+    }
+
+    @Test
+    public void testParallelStreamIsOrdered() {
+        long[] sequential = SegmentedSieve.primes(1_000_000, 3_000_000, false).toArray();
+        long[] parallel = SegmentedSieve.primes(1_000_000, 3_000_000, true).toArray();
+        assertArrayEquals("Parallel sieve should produce the same ordered primes", sequential, parallel);
+    }
+
+    @Test
+    public void testRangeNearTenToTheTwelfth() {
+        long from = 1_000_000_000_000L;
+        long to = from + 2_000_000;
+        long[] expected = LongStream.range(from, to).filter(LongPrimality::isPrime).toArray();
+        assertArrayEquals("Primes above 10^12 should match", expected, SegmentedSieve.primes(from, to).toArray());
+    }
+
+    @Test
+    public void testIteratorStopsAtUpperBound() {
+        PrimitiveIterator.OfLong primes = SegmentedSieve.iterator(100, 110);
+        assertEquals("First prime in [100, 110)", 101, primes.nextLong());
+        assertEquals("Second prime in [100, 110)", 103, primes.nextLong());
+        assertEquals("Third prime in [100, 110)", 107, primes.nextLong());
+        assertEquals("Fourth prime in [100, 110)", 109, primes.nextLong());
+        assertFalse("No prime in [100, 110) after 109", primes.hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsRangeAboveLimit() {
+        SegmentedSieve.primes(0, SegmentedSieve.MAX_LIMIT + 1);
+    }
+}
@@ -0,0 +1,30 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import utils.StrongPrimeGenerator;
+
+import java.math.BigInteger;
+
+/**
+ * Test suite for {@link StrongPrimeGenerator} checking bit lengths and primality of generated strong primes.
+ */
+public class StrongPrimeGeneratorTest {
+    private final StrongPrimeGenerator generator = new StrongPrimeGenerator();
+
+    @Test
+    public void testGenerateStrongPrime() {
+        for (int bits : new int[] {StrongPrimeGenerator.MIN_BIT_LENGTH, 513, 1024}) {
+            BigInteger p = generator.generatePrime(bits, 20);
+            assertEquals("Generated prime should have " + bits + " bits", bits, p.bitLength());
+            assertTrue("Generated number should be prime", p.isProbablePrime(50));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsShortBitLength() {
+        generator.generatePrime(StrongPrimeGenerator.MIN_BIT_LENGTH - 1, 20);
+    }
+}
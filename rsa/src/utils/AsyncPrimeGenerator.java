@@ -0,0 +1,136 @@
+package utils;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prime generation that runs off the caller's thread and can be abandoned. Candidates come from
+ * a {@link CandidateSieve} and are tested by any {@link PrimeChecker}. Each request returns a
+ * CompletableFuture; cancelling it, or letting its deadline pass, stops the search at the next
+ * candidate, so a slow 4096-bit or 8192-bit request gives its thread back instead of running to
+ * completion. Most candidates fail their first round, so that is rarely more than one modPow away.
+ */
+public class AsyncPrimeGenerator implements AutoCloseable {
+
+    private final PrimeChecker checker;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final RandomSource candidateSource;
+
+    /**
+     * Creates a Miller-Rabin generator with its own pool of daemon threads, each drawing from its own SecureRandom.
+     * @param threads - The number of requests that can search at the same time.
+     */
+    public AsyncPrimeGenerator(int threads) {
+        this(new MillerRabin(RandomSource.perThread(SecureRandom::new), RandomSource.perThread(SecureRandom::new)),
+                threads);
+    }
+
+    /**
+     * Creates a generator with its own pool of daemon threads, each drawing candidates from its own SecureRandom.
+     * @param checker - Tests each candidate; it is called from several threads at once.
+     * @param threads - The number of requests that can search at the same time.
+     */
+    public AsyncPrimeGenerator(PrimeChecker checker, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.checker = checker;
+        this.ownedExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "async-prime-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor = ownedExecutor;
+        this.candidateSource = RandomSource.perThread(SecureRandom::new);
+    }
+
+    /**
+     * @param checker - Tests each candidate; it is called from the executor's threads.
+     * @param executor - Runs the searches. It is not shut down by {@link #close()}.
+     * @param candidateSource - The source of random starting points, called from the executor's threads.
+     */
+    public AsyncPrimeGenerator(PrimeChecker checker, Executor executor, RandomSource candidateSource) {
+        this.checker = checker;
+        this.executor = executor;
+        this.ownedExecutor = null;
+        this.candidateSource = candidateSource;
+    }
+
+    /**
+     * Starts generating a prime with no deadline.
+     * @param bitLength - The bit length of the prime number to generate.
+     * @param certainty - The certainty passed to the checker for each candidate.
+     * @return A future completed with the prime. Cancelling it stops the search.
+     */
+    public CompletableFuture<BigInteger> generatePrime(int bitLength, int certainty) {
+        CompletableFuture<BigInteger> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> search(bitLength, certainty, result));
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Starts generating a prime that must be found within a deadline.
+     * @param bitLength - The bit length of the prime number to generate.
+     * @param certainty - The certainty passed to the checker for each candidate.
+     * @param timeout - How long the search may run before it is abandoned.
+     * @return A future completed with the prime, or exceptionally with a TimeoutException once the deadline passes.
+     */
+    public CompletableFuture<BigInteger> generatePrime(int bitLength, int certainty, Duration timeout) {
+        return generatePrime(bitLength, certainty).orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops the generator's own threads, abandoning searches in progress. A generator built
+     * around a caller's executor leaves it running.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Walks one sieved candidate stream until a prime is accepted or the future is completed elsewhere,
+     * which is how cancellation and timeouts reach the search. Anything thrown, errors included,
+     * completes the future so a caller without a deadline is never left waiting.
+     */
+    private void search(int bitLength, int certainty, CompletableFuture<BigInteger> result) {
+        try {
+            CandidateSieve candidates = new CandidateSieve(bitLength, candidateSource.get());
+            while (!abandoned(result)) {
+                BigInteger candidate = candidates.next();
+                if (checker.isPrime(candidate, certainty)) {
+                    result.complete(candidate);
+                }
+            }
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        }
+    }
+
+    private static boolean abandoned(CompletableFuture<BigInteger> result) {
+        if (Thread.currentThread().isInterrupted()) {
+            result.completeExceptionally(new CancellationException("Prime generation interrupted"));
+        }
+        return result.isDone();
+    }
+}
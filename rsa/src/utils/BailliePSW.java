@@ -0,0 +1,207 @@
+package utils;
+
+import java.math.BigInteger;
+
+/**
+ * The BailliePSW class implements the PrimeChecker interface with the Baillie-PSW test:
+ * one strong Miller-Rabin round to base 2 followed by a strong Lucas probable-prime test.
+ * No composite is known to pass both, and the cost is about three modular exponentiations
+ * whatever certainty the caller asks for.
+ */
+public class BailliePSW implements PrimeChecker {
+
+    private final RandomSource candidateSource;
+    private final PrimeMetrics metrics;
+    private final boolean instrumented;
+
+    /**
+     * Creates a checker that draws candidates from the shared secureRandom.
+     */
+    public BailliePSW() {
+        this(RandomSource.shared());
+    }
+
+    /**
+     * @param candidateSource the source of random starting points in generatePrime
+     */
+    public BailliePSW(RandomSource candidateSource) {
+        this(candidateSource, PrimeMetrics.NONE);
+    }
+
+    /**
+     * @param candidateSource the source of random starting points in generatePrime
+     * @param metrics         the listener told about candidates, rejections by stage and latencies
+     */
+    public BailliePSW(RandomSource candidateSource, PrimeMetrics metrics) {
+        this.candidateSource = candidateSource;
+        this.metrics = metrics;
+        this.instrumented = metrics != PrimeMetrics.NONE;
+    }
+
+    /**
+     * Checks if a number is prime using the Baillie-PSW test.
+     *
+     * @param n          the number to check for primality
+     * @param iterations NOT USED HERE, the test has a fixed cost
+     * @return true if the number is probably prime, false if it is composite
+     */
+    @Override
+    public boolean isPrime(BigInteger n, int iterations) {
+        long start = instrumented ? System.nanoTime() : 0;
+        boolean prime = test(n);
+        if (instrumented) metrics.isPrimeCompleted(n.bitLength(), System.nanoTime() - start, prime);
+        return prime;
+    }
+
+    private boolean test(BigInteger n) {
+        if (n.compareTo(BigInteger.ONE) <= 0) return false;
+        if (n.bitLength() <= 64) return LongPrimality.isPrimeUnsigned(n.longValue());
+        if (!n.testBit(0)) return false;
+
+        long start = instrumented ? System.nanoTime() : 0;
+        boolean passed = new MillerRabinContext(n).passes(BigInteger.TWO);
+        if (instrumented) metrics.witnessRound(System.nanoTime() - start, 0);
+        if (!passed) {
+            if (instrumented) metrics.rejected("millerRabin", n.bitLength(), 1);
+            return false;
+        }
+        if (!strongLucasTest(n)) {
+            if (instrumented) metrics.rejected("lucas", n.bitLength(), 1);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Generates a prime number with the specified bit length.
+     *
+     * @param bitLength  the bit length of the generated prime number
+     * @param certainty  NOT USED HERE, every candidate gets the full test
+     * @return a prime number with the specified bit length
+     */
+    @Override
+    public BigInteger generatePrime(int bitLength, int certainty) {
+        long start = instrumented ? System.nanoTime() : 0;
+        CandidateSieve candidates = new CandidateSieve(bitLength, candidateSource.get());
+        BigInteger candidate;
+        do {
+            candidate = candidates.next();
+            if (instrumented) metrics.candidateDrawn(bitLength);
+        } while (!this.isPrime(candidate, certainty));
+
+        if (instrumented) {
+            metrics.rejected("sieve", bitLength, candidates.sieved());
+            metrics.generatePrimeCompleted(bitLength, System.nanoTime() - start);
+        }
+        return candidate;
+    }
+
+    /**
+     * Strong Lucas test with Selfridge's parameters: D is the first of 5, -7, 9, -11, ... with
+     * Jacobi symbol (D/n) = -1, P = 1 and Q = (1 - D) / 4.
+     *
+     * @param n an odd number above 2^64
+     * @return true if n is a strong Lucas probable prime, false if it is composite
+     */
+    private static boolean strongLucasTest(BigInteger n) {
+        // A perfect square has (D/n) != -1 for every D, so the search below would never end
+        BigInteger root = n.sqrt();
+        if (root.multiply(root).equals(n)) return false;
+
+        long d = 5;
+        while (true) {
+            int symbol = jacobi(d, n);
+            if (symbol == -1) break;
+            if (symbol == 0) return false; // |d| < n shares a factor with n
+            d = d > 0 ? -(d + 2) : -d + 2;
+        }
+
+        BigInteger bigD = BigInteger.valueOf(d).mod(n);
+        BigInteger q = BigInteger.valueOf((1 - d) / 4).mod(n);
+
+        // n + 1 = 2^s * k with k odd
+        BigInteger nPlusOne = n.add(BigInteger.ONE);
+        int s = nPlusOne.getLowestSetBit();
+        BigInteger k = nPlusOne.shiftRight(s);
+
+        // Left-to-right ladder computing U_k, V_k and Q^k, starting from U_1 = 1, V_1 = P = 1
+        BigInteger u = BigInteger.ONE;
+        BigInteger v = BigInteger.ONE;
+        BigInteger qk = q;
+        for (int bit = k.bitLength() - 2; bit >= 0; bit--) {
+            // Doubling: U_2j = U_j V_j, V_2j = V_j^2 - 2 Q^j
+            u = u.multiply(v).mod(n);
+            v = v.multiply(v).subtract(qk.shiftLeft(1)).mod(n);
+            qk = qk.multiply(qk).mod(n);
+            if (k.testBit(bit)) {
+                // Increment with P = 1: U_j+1 = (U_j + V_j) / 2, V_j+1 = (D U_j + V_j) / 2
+                BigInteger nextU = halve(u.add(v), n);
+                v = halve(bigD.multiply(u).add(v), n);
+                u = nextU;
+                qk = qk.multiply(q).mod(n);
+            }
+        }
+
+        if (u.signum() == 0 || v.signum() == 0) return true;
+        for (int r = 1; r < s; r++) {
+            v = v.multiply(v).subtract(qk.shiftLeft(1)).mod(n);
+            if (v.signum() == 0) return true;
+            qk = qk.multiply(qk).mod(n);
+        }
+        return false;
+    }
+
+    /**
+     * @return x / 2 mod n for odd n.
+     */
+    private static BigInteger halve(BigInteger x, BigInteger n) {
+        x = x.mod(n);
+        if (x.testBit(0)) {
+            x = x.add(n);
+        }
+        return x.shiftRight(1);
+    }
+
+    /**
+     * Jacobi symbol (a/n) for a small signed a and an odd n larger than |a|.
+     */
+    private static int jacobi(long a, BigInteger n) {
+        int sign = 1;
+        if (a < 0) {
+            a = -a;
+            // (-1/n) = -1 exactly when n = 3 mod 4
+            if (n.testBit(1)) sign = -sign;
+        }
+        int nMod8 = n.intValue() & 7;
+        while ((a & 1) == 0) {
+            a >>= 1;
+            // (2/n) = -1 exactly when n = 3 or 5 mod 8
+            if (nMod8 == 3 || nMod8 == 5) sign = -sign;
+        }
+        if (a == 1) return sign;
+        // Quadratic reciprocity flips the sign when both a and n are 3 mod 4
+        if ((a & 3) == 3 && (nMod8 & 3) == 3) sign = -sign;
+        return sign * jacobi(n.mod(BigInteger.valueOf(a)).longValue(), a);
+    }
+
+    /**
+     * Jacobi symbol (a/n) for 0 <= a and odd n > 0, all in long arithmetic.
+     */
+    private static int jacobi(long a, long n) {
+        int sign = 1;
+        a %= n;
+        while (a != 0) {
+            while ((a & 1) == 0) {
+                a >>= 1;
+                long r = n & 7;
+                if (r == 3 || r == 5) sign = -sign;
+            }
+            long t = a;
+            a = n;
+            n = t;
+            if ((a & 3) == 3 && (n & 3) == 3) sign = -sign;
+            a %= n;
+        }
+        return n == 1 ? sign : 0;
+    }
+}
@@ -0,0 +1,455 @@
+package utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Bernstein's batch GCD for finding RSA moduli that share a prime. A product tree multiplies
+ * every modulus together, a remainder tree reduces the product modulo each N_i^2, and
+ * gcd((P mod N_i^2) / N_i, N_i) is then the product of N_i's primes that appear in some other
+ * modulus. The cost is quasi-linear in the corpus instead of quadratic for pairwise gcds.
+ * Each tree level is computed in parallel, and levels larger than a threshold are written to
+ * a file and read back through memory mapping so the corpus does not have to fit in heap.
+ * <p>
+ * BigInteger cannot hold more than 2^31 bits, which a single tree over about a million 2048-bit
+ * moduli would exceed. The corpus is therefore split into batches of at most {@link #DEFAULT_BATCH_BITS}
+ * bits (about 260,000 such moduli). Each batch is reduced against its own product and then against
+ * every other batch's product, which costs one extra remainder tree per pair of batches.
+ */
+public class BatchGcd {
+
+    /** Entries computed in parallel before a spilled level is appended to its file. */
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * Default bits of moduli per batch. Squaring a child of the root can double its size, so this
+     * stays a factor of two below BigInteger's limit of 2^31 bits.
+     */
+    public static final long DEFAULT_BATCH_BITS = 1L << 29;
+
+    private final ForkJoinPool pool;
+    private final Path spillDirectory;
+    private final long spillThresholdBytes;
+    private final long batchBits;
+
+    /**
+     * Creates a scanner that keeps every level in memory and runs on the common pool.
+     */
+    public BatchGcd() {
+        this(ForkJoinPool.commonPool(), null, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param pool - The pool each tree level is computed on.
+     * @param spillDirectory - Where oversized levels are written, or null to keep everything in memory.
+     * @param spillThresholdBytes - Levels estimated above this size are spilled to disk.
+     */
+    public BatchGcd(ForkJoinPool pool, Path spillDirectory, long spillThresholdBytes) {
+        this(pool, spillDirectory, spillThresholdBytes, DEFAULT_BATCH_BITS);
+    }
+
+    /**
+     * @param pool - The pool each tree level is computed on.
+     * @param spillDirectory - Where oversized levels are written, or null to keep everything in memory.
+     * @param spillThresholdBytes - Levels estimated above this size are spilled to disk.
+     * @param batchBits - The most bits of moduli multiplied into one product tree.
+     */
+    public BatchGcd(ForkJoinPool pool, Path spillDirectory, long spillThresholdBytes, long batchBits) {
+        if (batchBits < 1) {
+            throw new IllegalArgumentException("batchBits must be positive");
+        }
+        this.pool = pool;
+        this.spillDirectory = spillDirectory;
+        this.spillThresholdBytes = spillThresholdBytes;
+        this.batchBits = batchBits;
+    }
+
+    /**
+     * Finds the primes each modulus shares with the rest of the corpus.
+     * @param moduli - The RSA moduli to scan, all greater than 1.
+     * @return For each modulus, 1 if it shares nothing; a proper factor if it shares a prime with another
+     *         modulus; the modulus itself only if an identical modulus appears elsewhere in the corpus.
+     * @throws IOException if a spilled level cannot be written or read.
+     */
+    public BigInteger[] sharedFactors(List<BigInteger> moduli) throws IOException {
+        int count = moduli.size();
+        BigInteger[] factors = new BigInteger[count];
+        Arrays.fill(factors, BigInteger.ONE);
+        if (count < 2) {
+            return factors;
+        }
+
+        // Every tree is kept until all batches are reduced, so each one is built exactly once
+        List<List<BigInteger>> batches = batches(moduli);
+        List<List<Level>> trees = new ArrayList<>();
+        try {
+            BigInteger[] roots = new BigInteger[batches.size()];
+            for (int b = 0; b < roots.length; b++) {
+                List<Level> tree = productTree(batches.get(b));
+                trees.add(tree);
+                roots[b] = tree.get(tree.size() - 1).get(0);
+            }
+
+            int offset = 0;
+            for (int a = 0; a < trees.size(); a++) {
+                List<Level> tree = trees.get(a);
+                merge(factors, offset, reduce(tree, null));
+                for (int b = 0; b < roots.length; b++) {
+                    if (b != a) {
+                        merge(factors, offset, reduce(tree, roots[b]));
+                    }
+                }
+                offset += batches.get(a).size();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (List<Level> tree : trees) {
+                for (Level level : tree) {
+                    level.close();
+                }
+            }
+        }
+        splitFullyShared(moduli, factors);
+        return factors;
+    }
+
+    /**
+     * @param moduli - The RSA moduli to scan.
+     * @return The indices of moduli that share at least one prime with another modulus.
+     * @throws IOException if a spilled level cannot be written or read.
+     */
+    public List<Integer> weakIndices(List<BigInteger> moduli) throws IOException {
+        BigInteger[] factors = sharedFactors(moduli);
+        List<Integer> weak = new ArrayList<>();
+        for (int i = 0; i < factors.length; i++) {
+            if (!factors[i].equals(BigInteger.ONE)) {
+                weak.add(i);
+            }
+        }
+        return weak;
+    }
+
+    /**
+     * Splits the corpus into consecutive batches whose products stay well inside BigInteger's
+     * range, since the root product and the squares below it hold as many bits as the whole batch.
+     */
+    private List<List<BigInteger>> batches(List<BigInteger> moduli) {
+        List<List<BigInteger>> batches = new ArrayList<>();
+        int from = 0;
+        long bits = 0;
+        for (int i = 0; i < moduli.size(); i++) {
+            long next = moduli.get(i).bitLength();
+            if (i > from && bits + next > batchBits) {
+                batches.add(moduli.subList(from, i));
+                from = i;
+                bits = 0;
+            }
+            bits += next;
+        }
+        batches.add(moduli.subList(from, moduli.size()));
+        return batches;
+    }
+
+    private List<Level> productTree(List<BigInteger> moduli) throws IOException {
+        List<Level> tree = new ArrayList<>();
+        try {
+            Level level = new ArrayLevel(moduli.toArray(new BigInteger[0]));
+            tree.add(level);
+            while (level.size() > 1) {
+                Level below = level;
+                level = build((below.size() + 1) / 2, below.bytes(), i -> 2 * i + 1 < below.size()
+                        ? below.get(2 * i).multiply(below.get(2 * i + 1))
+                        : below.get(2 * i));
+                tree.add(level);
+            }
+            return tree;
+        } catch (IOException | RuntimeException e) {
+            for (Level built : tree) {
+                built.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Walks a remainder tree down a batch's product tree, leaving the tree itself intact.
+     * @param tree - The batch's product tree, leaves first.
+     * @param other - The product of another batch, or null to reduce the batch's own product.
+     * @return For each leaf, gcd with the product of the other moduli in the batch, or gcd with {@code other}.
+     */
+    private BigInteger[] reduce(List<Level> tree, BigInteger other) throws IOException {
+        Level root = tree.get(tree.size() - 1);
+        // At the root, P mod P^2 is P itself
+        Level remainders = other == null ? root
+                : new ArrayLevel(new BigInteger[] {other.mod(root.get(0).multiply(root.get(0)))});
+        try {
+            for (int depth = tree.size() - 2; depth >= 0; depth--) {
+                Level nodes = tree.get(depth);
+                Level parents = remainders;
+                remainders = build(nodes.size(), 2 * nodes.bytes(), i -> {
+                    BigInteger node = nodes.get(i);
+                    return parents.get(i / 2).mod(node.multiply(node));
+                });
+                if (parents != root) {
+                    parents.close();
+                }
+            }
+
+            Level leaves = tree.get(0);
+            Level leafRemainders = remainders;
+            BigInteger[] factors = new BigInteger[leaves.size()];
+            pool.submit(() -> IntStream.range(0, factors.length).parallel().forEach(i -> {
+                BigInteger n = leaves.get(i);
+                factors[i] = other == null ? leafRemainders.get(i).divide(n).gcd(n) : leafRemainders.get(i).gcd(n);
+            })).join();
+            return factors;
+        } finally {
+            if (remainders != root) {
+                remainders.close();
+            }
+        }
+    }
+
+    /**
+     * Combines shared factors found against different batches. Both are divisors of the same
+     * modulus, so their lcm is the product of the primes shared with either.
+     */
+    private static void merge(BigInteger[] factors, int offset, BigInteger[] found) {
+        for (int i = 0; i < found.length; i++) {
+            BigInteger known = factors[offset + i];
+            BigInteger g = found[i];
+            if (!g.equals(BigInteger.ONE)) {
+                factors[offset + i] = known.equals(BigInteger.ONE) ? g : known.multiply(g).divide(known.gcd(g));
+            }
+        }
+    }
+
+    /**
+     * When both primes of N_i are shared the batch result is N_i itself. Exact duplicates always
+     * land here and cannot be split, so moduli are grouped by value and duplicates reported whole.
+     * Any prime N_i shares divides either another modulus's proper shared factor or another fully
+     * shared modulus, so gcds against those few values recover a proper factor without rescanning
+     * the corpus.
+     */
+    private void splitFullyShared(List<BigInteger> moduli, BigInteger[] factors) {
+        Map<BigInteger, List<Integer>> full = new HashMap<>();
+        Set<BigInteger> partners = new HashSet<>();
+        for (int i = 0; i < factors.length; i++) {
+            BigInteger n = moduli.get(i);
+            if (factors[i].equals(n)) {
+                full.computeIfAbsent(n, key -> new ArrayList<>()).add(i);
+                partners.add(n);
+            } else if (!factors[i].equals(BigInteger.ONE)) {
+                partners.add(factors[i]);
+            }
+        }
+        List<BigInteger> singles = new ArrayList<>();
+        for (Map.Entry<BigInteger, List<Integer>> entry : full.entrySet()) {
+            if (entry.getValue().size() == 1) {
+                singles.add(entry.getKey());
+            }
+        }
+        if (singles.isEmpty()) {
+            return;
+        }
+        List<BigInteger> candidates = new ArrayList<>(partners);
+        pool.submit(() -> singles.parallelStream().forEach(n -> {
+            for (BigInteger candidate : candidates) {
+                BigInteger g = n.gcd(candidate);
+                if (!g.equals(BigInteger.ONE) && !g.equals(n)) {
+                    factors[full.get(n).get(0)] = g;
+                    break;
+                }
+            }
+        })).join();
+    }
+
+    /**
+     * Computes one tree level in parallel, in memory or spilled to a mapped file depending on its estimated size.
+     */
+    private Level build(int size, long estimatedBytes, IntFunction<BigInteger> entry) throws IOException {
+        if (spillDirectory == null || estimatedBytes <= spillThresholdBytes) {
+            BigInteger[] values = new BigInteger[size];
+            pool.submit(() -> IntStream.range(0, size).parallel().forEach(i -> values[i] = entry.apply(i))).join();
+            return new ArrayLevel(values);
+        }
+
+        MappedLevel.Writer writer = new MappedLevel.Writer(Files.createTempFile(spillDirectory, "batch-gcd-", ".level"), size);
+        try {
+            BigInteger[] chunk = new BigInteger[Math.min(CHUNK_SIZE, size)];
+            for (int start = 0; start < size; start += CHUNK_SIZE) {
+                int from = start;
+                int length = Math.min(CHUNK_SIZE, size - start);
+                pool.submit(() -> IntStream.range(0, length).parallel().forEach(k -> chunk[k] = entry.apply(from + k))).join();
+                for (int k = 0; k < length; k++) {
+                    writer.append(chunk[k]);
+                }
+            }
+            return writer.finish();
+        } catch (IOException | RuntimeException e) {
+            writer.abandon();
+            throw e;
+        }
+    }
+
+    /**
+     * One level of the product or remainder tree.
+     */
+    private interface Level extends AutoCloseable {
+        int size();
+
+        BigInteger get(int index);
+
+        long bytes();
+
+        @Override
+        void close();
+    }
+
+    private static final class ArrayLevel implements Level {
+        private final BigInteger[] values;
+        private final long bytes;
+
+        ArrayLevel(BigInteger[] values) {
+            this.values = values;
+            long total = 0;
+            for (BigInteger value : values) {
+                total += value.bitLength() / 8 + 1;
+            }
+            this.bytes = total;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public BigInteger get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public long bytes() {
+            return bytes;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * A level stored as consecutive two's-complement byte arrays in a file, read through memory mapping.
+     */
+    private static final class MappedLevel implements Level {
+        private static final long SEGMENT_BYTES = 1L << 30;
+
+        private final Path file;
+        private final FileChannel channel;
+        private final long[] offsets;
+        private final MappedByteBuffer[] segments;
+
+        private MappedLevel(Path file, FileChannel channel, long[] offsets) throws IOException {
+            this.file = file;
+            this.channel = channel;
+            this.offsets = offsets;
+            long length = offsets[offsets.length - 1];
+            this.segments = new MappedByteBuffer[(int) ((length + SEGMENT_BYTES - 1) / SEGMENT_BYTES)];
+            for (int s = 0; s < segments.length; s++) {
+                long start = s * SEGMENT_BYTES;
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_BYTES, length - start));
+            }
+        }
+
+        @Override
+        public int size() {
+            return offsets.length - 1;
+        }
+
+        @Override
+        public BigInteger get(int index) {
+            long start = offsets[index];
+            byte[] bytes = new byte[(int) (offsets[index + 1] - start)];
+            int segment = (int) (start / SEGMENT_BYTES);
+            if (offsets[index + 1] <= (segment + 1) * SEGMENT_BYTES) {
+                segments[segment].get((int) (start - segment * SEGMENT_BYTES), bytes);
+            } else {
+                // The entry straddles two mappings, so read it directly
+                try {
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                    while (buffer.hasRemaining()) {
+                        channel.read(buffer, start + buffer.position());
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return new BigInteger(bytes);
+        }
+
+        @Override
+        public long bytes() {
+            return offsets[offsets.length - 1];
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        static final class Writer {
+            private final Path file;
+            private final FileChannel channel;
+            private final long[] offsets;
+            private int count;
+
+            Writer(Path file, int size) throws IOException {
+                this.file = file;
+                this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                this.offsets = new long[size + 1];
+            }
+
+            void append(BigInteger value) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(value.toByteArray());
+                long position = offsets[count];
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                offsets[++count] = position;
+            }
+
+            MappedLevel finish() throws IOException {
+                return new MappedLevel(file, channel, offsets);
+            }
+
+            void abandon() throws IOException {
+                channel.close();
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package utils;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Checks many numbers for primality at once. Inputs up to 64 bits are answered exactly by
+ * {@link LongPrimality}. Larger odd inputs go through a shared small-prime prefilter: a product
+ * tree of the batch and a remainder tree of the product of every prime below 2^16 find each
+ * input's residue modulo that product, and a gcd above 1 proves a small factor. Only the survivors
+ * are handed to the configured checker, in parallel, and the answers come back in input order.
+ */
+public class BatchPrimeChecker {
+
+    private static final BigInteger SMALL_PRIME_PRODUCT = smallPrimeProduct();
+
+    /**
+     * Input bits per product tree. A node larger than the small-prime product leaves it unchanged
+     * when reducing, so each tree is kept to about that size and reduced from the product on its own.
+     */
+    private static final long CHUNK_BITS = SMALL_PRIME_PRODUCT.bitLength();
+
+    private final PrimeChecker checker;
+    private final int iterations;
+    private final ForkJoinPool pool;
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder prefilterRejected = new LongAdder();
+
+    /**
+     * Creates a batch checker that runs on the common fork-join pool.
+     * @param checker - The checker survivors of the prefilter are passed to.
+     * @param iterations - The iterations passed to the checker.
+     */
+    public BatchPrimeChecker(PrimeChecker checker, int iterations) {
+        this(checker, iterations, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param checker - The checker survivors of the prefilter are passed to.
+     * @param iterations - The iterations passed to the checker.
+     * @param pool - The pool the trees and the checker calls run on.
+     */
+    public BatchPrimeChecker(PrimeChecker checker, int iterations, ForkJoinPool pool) {
+        this.checker = checker;
+        this.iterations = iterations;
+        this.pool = pool;
+    }
+
+    /**
+     * @param values - The numbers to check.
+     * @return One answer per input, in iteration order of the collection.
+     */
+    public boolean[] isPrimeAll(Collection<BigInteger> values) {
+        BigInteger[] numbers = values.toArray(new BigInteger[0]);
+        boolean[] results = new boolean[numbers.length];
+        boolean[] decided = new boolean[numbers.length];
+
+        List<Integer> large = new ArrayList<>();
+        for (int i = 0; i < numbers.length; i++) {
+            BigInteger n = numbers[i];
+            if (n.signum() <= 0 || n.bitLength() <= 64) {
+                results[i] = n.signum() > 0 && LongPrimality.isPrimeUnsigned(n.longValue());
+                decided[i] = true;
+            } else if (!n.testBit(0)) {
+                decided[i] = true;
+                prefilterRejected.increment();
+            } else {
+                large.add(i);
+            }
+        }
+
+        List<List<Integer>> chunks = chunks(numbers, large);
+        pool.submit(() -> chunks.parallelStream().forEach(chunk -> {
+            BigInteger[] chunkValues = new BigInteger[chunk.size()];
+            for (int k = 0; k < chunkValues.length; k++) {
+                chunkValues[k] = numbers[chunk.get(k)];
+            }
+            BigInteger[] residues = remainders(SMALL_PRIME_PRODUCT, chunkValues);
+            for (int k = 0; k < chunkValues.length; k++) {
+                // Every input here is above 2^64, so a common factor with a small prime is a proper one
+                if (!residues[k].gcd(chunkValues[k]).equals(BigInteger.ONE)) {
+                    decided[chunk.get(k)] = true;
+                    prefilterRejected.increment();
+                }
+            }
+        })).join();
+
+        pool.submit(() -> IntStream.range(0, numbers.length).parallel().filter(i -> !decided[i]).forEach(i -> {
+            results[i] = checker.isPrime(numbers[i], iterations);
+            checked.increment();
+        })).join();
+        return results;
+    }
+
+    /**
+     * @return The number of inputs passed to the underlying checker since creation.
+     */
+    public long checked() {
+        return checked.sum();
+    }
+
+    /**
+     * @return The number of inputs rejected as even or by the small-prime prefilter since creation.
+     */
+    public long prefilterRejected() {
+        return prefilterRejected.sum();
+    }
+
+    /**
+     * Splits the inputs into runs whose combined size stays within {@link #CHUNK_BITS}. An input
+     * larger than that on its own gets a chunk to itself.
+     */
+    private static List<List<Integer>> chunks(BigInteger[] numbers, List<Integer> indices) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        int from = 0;
+        long bits = 0;
+        for (int k = 0; k < indices.size(); k++) {
+            long next = numbers[indices.get(k)].bitLength();
+            if (k > from && bits + next > CHUNK_BITS) {
+                chunks.add(indices.subList(from, k));
+                from = k;
+                bits = 0;
+            }
+            bits += next;
+        }
+        if (from < indices.size()) {
+            chunks.add(indices.subList(from, indices.size()));
+        }
+        return chunks;
+    }
+
+    /**
+     * Computes x mod m for every modulus with a product tree over the moduli and a remainder tree
+     * down from x, which costs far less than reducing x by each modulus on its own.
+     * @param x - The number to reduce.
+     * @param moduli - The moduli.
+     * @return x mod moduli[i] at index i.
+     */
+    static BigInteger[] remainders(BigInteger x, BigInteger[] moduli) {
+        List<BigInteger[]> tree = productTree(moduli);
+        BigInteger[] remainders = {x.mod(tree.get(tree.size() - 1)[0])};
+        for (int level = tree.size() - 2; level >= 0; level--) {
+            BigInteger[] nodes = tree.get(level);
+            BigInteger[] parents = remainders;
+            BigInteger[] next = new BigInteger[nodes.length];
+            for (int i = 0; i < nodes.length; i++) {
+                next[i] = parents[i / 2].mod(nodes[i]);
+            }
+            remainders = next;
+        }
+        return remainders;
+    }
+
+    /**
+     * @return The levels of the product tree, leaves first and the single root last.
+     */
+    static List<BigInteger[]> productTree(BigInteger[] leaves) {
+        List<BigInteger[]> tree = new ArrayList<>();
+        BigInteger[] level = leaves;
+        tree.add(level);
+        while (level.length > 1) {
+            BigInteger[] below = level;
+            BigInteger[] above = new BigInteger[(below.length + 1) / 2];
+            for (int i = 0; i < above.length; i++) {
+                above[i] = 2 * i + 1 < below.length ? below[2 * i].multiply(below[2 * i + 1]) : below[2 * i];
+            }
+            tree.add(above);
+            level = above;
+        }
+        return tree;
+    }
+
+    private static BigInteger smallPrimeProduct() {
+        BigInteger[] primes = new BigInteger[SmallPrimes.count()];
+        for (int i = 0; i < primes.length; i++) {
+            primes[i] = BigInteger.valueOf(SmallPrimes.get(i));
+        }
+        List<BigInteger[]> tree = productTree(primes);
+        return tree.get(tree.size() - 1)[0];
+    }
+}
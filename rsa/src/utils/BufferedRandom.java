@@ -0,0 +1,60 @@
+package utils;
+
+import java.util.Random;
+
+/**
+ * A Random that draws bytes from another generator in bulk and slices requests out of the buffer.
+ * One large nextBytes call on a SecureRandom costs far less than many small ones.
+ * Instances are not thread-safe; give each thread its own, for example with
+ * {@link RandomSource#buffered(java.util.function.Supplier, int)}.
+ */
+public class BufferedRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Random delegate;
+    private final byte[] buffer;
+    private int position;
+
+    /**
+     * @param delegate - The generator the buffer is refilled from.
+     * @param bufferSize - The number of bytes drawn per refill.
+     */
+    public BufferedRandom(Random delegate, int bufferSize) {
+        if (bufferSize < 8) {
+            throw new IllegalArgumentException("bufferSize must be at least 8");
+        }
+        this.delegate = delegate;
+        this.buffer = new byte[bufferSize];
+        this.position = bufferSize;
+    }
+
+    @Override
+    public void nextBytes(byte[] bytes) {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (position == buffer.length) {
+                delegate.nextBytes(buffer);
+                position = 0;
+            }
+            int length = Math.min(bytes.length - offset, buffer.length - position);
+            System.arraycopy(buffer, position, bytes, offset, length);
+            position += length;
+            offset += length;
+        }
+    }
+
+    @Override
+    protected int next(int bits) {
+        if (buffer.length - position < 4) {
+            delegate.nextBytes(buffer);
+            position = 0;
+        }
+        int value = (buffer[position] & 0xFF)
+                | (buffer[position + 1] & 0xFF) << 8
+                | (buffer[position + 2] & 0xFF) << 16
+                | (buffer[position + 3] & 0xFF) << 24;
+        position += 4;
+        return value >>> (32 - bits);
+    }
+}
@@ -0,0 +1,169 @@
+package utils;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A PrimeChecker decorator that remembers verdicts. Each entry records the certainty it was
+ * established at: a "probably prime" verdict is reused only for requests asking for no more
+ * iterations than that, while a "composite" verdict is a proof and is reused for any request.
+ * The cache is bounded and evicts the least recently used entry once it is full.
+ */
+public class CachingPrimeChecker implements PrimeChecker {
+
+    private final PrimeChecker delegate;
+    private final boolean hashKeys;
+    private final Map<Object, Verdict> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache keyed by the numbers themselves.
+     * @param delegate - The checker whose verdicts are cached.
+     * @param maximumSize - The maximum number of cached verdicts.
+     */
+    public CachingPrimeChecker(PrimeChecker delegate, int maximumSize) {
+        this(delegate, maximumSize, false);
+    }
+
+    /**
+     * @param delegate - The checker whose verdicts are cached.
+     * @param maximumSize - The maximum number of cached verdicts.
+     * @param hashKeys - Whether to key entries by a SHA-256 digest of the number instead of the number,
+     *                   which keeps each entry small when the numbers are thousands of bits long.
+     */
+    public CachingPrimeChecker(PrimeChecker delegate, int maximumSize, boolean hashKeys) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        this.delegate = delegate;
+        this.hashKeys = hashKeys;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Verdict> eldest) {
+                if (size() > maximumSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns a cached verdict if it is strong enough, otherwise runs the delegate and caches its verdict.
+     * @param n - The number to check for primality.
+     * @param iterations - The certainty the caller needs.
+     * @return false if n is composite, true if n is probably prime.
+     */
+    @Override
+    public boolean isPrime(BigInteger n, int iterations) {
+        Object key = key(n);
+        Verdict cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null && (!cached.prime || cached.certainty >= iterations)) {
+            hits.increment();
+            return cached.prime;
+        }
+
+        misses.increment();
+        boolean prime = delegate.isPrime(n, iterations);
+        record(key, prime, iterations);
+        return prime;
+    }
+
+    /**
+     * Generates a prime with the delegate and caches it as prime at the requested certainty.
+     * @param bitLength - The bit length of the prime number to generate.
+     * @param certainty - A measure of the certainty that the returned number is prime.
+     * @return A prime number of the specified bit length.
+     */
+    @Override
+    public BigInteger generatePrime(int bitLength, int certainty) {
+        BigInteger prime = delegate.generatePrime(bitLength, certainty);
+        record(key(prime), true, certainty);
+        return prime;
+    }
+
+    /**
+     * @return The number of isPrime calls answered from the cache.
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of isPrime calls that had to run the delegate.
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of entries evicted to stay within the maximum size.
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return The number of verdicts currently cached.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Empties the cache. The statistics are kept.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private void record(Object key, boolean prime, int certainty) {
+        synchronized (cache) {
+            Verdict existing = cache.get(key);
+            // Never replace a stronger verdict, e.g. one written by a concurrent caller
+            if (existing != null && (!existing.prime || (prime && existing.certainty >= certainty))) {
+                return;
+            }
+            cache.put(key, new Verdict(prime, certainty));
+        }
+    }
+
+    private Object key(BigInteger n) {
+        if (!hashKeys) {
+            return n;
+        }
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(n.toByteArray()));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Verdict {
+        final boolean prime;
+        final int certainty;
+
+        Verdict(boolean prime, int certainty) {
+            this.prime = prime;
+            this.certainty = certainty;
+        }
+    }
+}
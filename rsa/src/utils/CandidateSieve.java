@@ -0,0 +1,118 @@
+package utils;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Produces prime candidates of an exact bit length for the generatePrime implementations.
+ * One random odd starting point is drawn, and the odd numbers that follow it are sieved in
+ * windows against the {@link SmallPrimes} table. Only numbers with no small factor are returned,
+ * so the expensive primality test never runs on an obvious composite.
+ */
+public class CandidateSieve {
+
+    private final int bitLength;
+    private final Random random;
+    private final int primeCount;
+    private final int[] residues;
+    private final int windowSize;
+    private final long[] window;
+
+    private BigInteger base;
+    private int position;
+    private long sieved;
+
+    /**
+     * @param bitLength - The bit length of every candidate returned, at least 2.
+     * @param random - The source used to draw starting points.
+     */
+    public CandidateSieve(int bitLength, Random random) {
+        if (bitLength < 2) {
+            throw new ArithmeticException("bitLength < 2");
+        }
+        this.bitLength = bitLength;
+        this.random = random;
+        // Candidates are at least 2^(bitLength-1), so any table prime below that is a proper divisor.
+        this.primeCount = bitLength > 17 ? SmallPrimes.count() : SmallPrimes.countBelow(1L << (bitLength - 1));
+        this.residues = new int[primeCount];
+        this.windowSize = Math.max(64, bitLength / 20 * 64);
+        this.window = new long[(windowSize + 63) / 64];
+        restart();
+    }
+
+    /**
+     * @return The next odd number of the requested bit length that has no factor in the small prime table.
+     */
+    public BigInteger next() {
+        while (true) {
+            int i = nextClear(position);
+            sieved += i - position;
+            if (i < windowSize) {
+                position = i + 1;
+                BigInteger candidate = base.add(BigInteger.valueOf(2L * i));
+                if (candidate.bitLength() == bitLength) {
+                    return candidate;
+                }
+                // Walked off the top of the bit length, so draw a fresh starting point.
+                restart();
+            } else {
+                advance();
+            }
+        }
+    }
+
+    /**
+     * @return How many odd numbers have been skipped so far because they have a small factor.
+     */
+    public long sieved() {
+        return sieved;
+    }
+
+    /**
+     * Draws a new random odd starting point with the top bit set and sieves the first window.
+     */
+    private void restart() {
+        base = new BigInteger(bitLength, random).setBit(bitLength - 1).setBit(0);
+        SmallPrimes.residues(base, primeCount, residues);
+        sieveWindow();
+    }
+
+    /**
+     * Moves the base past the current window, updating the residues without touching the BigInteger.
+     */
+    private void advance() {
+        long step = 2L * windowSize;
+        base = base.add(BigInteger.valueOf(step));
+        for (int k = 0; k < primeCount; k++) {
+            int p = SmallPrimes.ODD_PRIMES[k];
+            residues[k] = (int) ((residues[k] + step) % p);
+        }
+        sieveWindow();
+    }
+
+    /**
+     * Marks every offset i whose number base + 2i is divisible by a table prime.
+     */
+    private void sieveWindow() {
+        Arrays.fill(window, 0L);
+        for (int k = 0; k < primeCount; k++) {
+            int p = SmallPrimes.ODD_PRIMES[k];
+            // Solve r + 2i = 0 (mod p), using (p + 1) / 2 as the inverse of 2.
+            long i = ((long) (p - residues[k]) % p) * ((p + 1) / 2) % p;
+            for (; i < windowSize; i += p) {
+                window[(int) (i >>> 6)] |= 1L << i;
+            }
+        }
+        position = 0;
+    }
+
+    private int nextClear(int from) {
+        for (int i = from; i < windowSize; i++) {
+            if ((window[i >>> 6] & (1L << i)) == 0) {
+                return i;
+            }
+        }
+        return windowSize;
+    }
+}
@@ -0,0 +1,478 @@
+package utils;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Splits numbers into their prime factors by running progressively more expensive methods:
+ * trial division by the {@link SmallPrimes} table, a perfect-power check, Pollard's rho with
+ * Brent's cycle detection, Pollard's p - 1, and finally elliptic-curve factorisation (ECM) with
+ * curves run in parallel on a fork-join pool. Each stage only sees what the earlier ones could not
+ * split. ECM stops after a fixed schedule of curves, so numbers whose factors are all too large, such
+ * as a sound RSA modulus, come back as unsplit composites instead of running forever.
+ */
+public class Factorizer {
+
+    /** Pollard rho iterations per attempt before moving on to the next stage. */
+    private static final long RHO_ITERATIONS = 1L << 20;
+    /** Products of differences accumulated between gcds in Brent's loop. */
+    private static final int RHO_BATCH = 128;
+    /** Stage-1 bound for Pollard p - 1. */
+    private static final int P_MINUS_1_BOUND = 100_000;
+    /** ECM bounds and curve counts, each level aimed at factors about 5 digits longer than the last. */
+    private static final int[] ECM_BOUNDS = {2_000, 11_000, 50_000, 250_000};
+    private static final int[] ECM_CURVES = {25, 90, 300, 700};
+    /** log2 of the trial-division limit: every root left for the perfect-power check exceeds 2^16. */
+    private static final int ROOT_MIN_LOG2 = BigInteger.valueOf(SmallPrimes.LIMIT).bitLength() - 1;
+
+    private final ForkJoinPool pool;
+    private final int parallelism;
+    private final PrimeChecker checker;
+    private final RandomSource randomSource;
+    private final int ecmLevels;
+
+    /**
+     * Creates a factorizer that runs ECM on the common fork-join pool, up to factors of about 25 digits.
+     */
+    public Factorizer() {
+        this(ForkJoinPool.commonPool(), new BailliePSW(), RandomSource.shared(), 3);
+    }
+
+    /**
+     * @param pool - The pool ECM curves are run on.
+     * @param checker - Decides which factors are prime and need no further splitting.
+     * @param randomSource - The source of rho starting points and ECM curves, called from every pool thread.
+     * @param ecmLevels - How many levels of the ECM schedule to try, from 0 (no ECM) to 4 (factors of about 30 digits).
+     */
+    public Factorizer(ForkJoinPool pool, PrimeChecker checker, RandomSource randomSource, int ecmLevels) {
+        if (ecmLevels < 0 || ecmLevels > ECM_BOUNDS.length) {
+            throw new IllegalArgumentException("ecmLevels must be between 0 and " + ECM_BOUNDS.length);
+        }
+        this.pool = pool;
+        this.parallelism = Math.max(1, pool.getParallelism());
+        this.checker = checker;
+        this.randomSource = randomSource;
+        this.ecmLevels = ecmLevels;
+    }
+
+    /**
+     * The outcome of factoring one number.
+     * @param primes - The prime factors found, with multiplicity, in ascending order.
+     * @param composites - Factors no stage could split, in ascending order; empty when factoring succeeded.
+     */
+    public record Factorization(List<BigInteger> primes, List<BigInteger> composites) {
+
+        /**
+         * @return true if every factor is prime.
+         */
+        public boolean complete() {
+            return composites.isEmpty();
+        }
+    }
+
+    /**
+     * Factors a positive number.
+     * @param n - The number to factor, at least 1.
+     * @return The prime factors, and any composite factors that could not be split.
+     */
+    public Factorization factor(BigInteger n) {
+        if (n.signum() <= 0) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        List<BigInteger> primes = new ArrayList<>();
+        List<BigInteger> composites = new ArrayList<>();
+        Deque<BigInteger> work = new ArrayDeque<>();
+        BigInteger rest = stripSmallFactors(n, primes);
+        if (!rest.equals(BigInteger.ONE)) {
+            work.push(rest);
+        }
+        while (!work.isEmpty()) {
+            BigInteger m = work.pop();
+            if (checker.isPrime(m, 40)) {
+                primes.add(m);
+                continue;
+            }
+            BigInteger factor = findFactor(m);
+            if (factor == null) {
+                composites.add(m);
+            } else {
+                work.push(factor);
+                work.push(m.divide(factor));
+            }
+        }
+        Collections.sort(primes);
+        Collections.sort(composites);
+        return new Factorization(Collections.unmodifiableList(primes), Collections.unmodifiableList(composites));
+    }
+
+    /**
+     * Runs every stage after trial division on a composite with no small factors.
+     * @return A nontrivial factor, or null if every stage gave up.
+     */
+    private BigInteger findFactor(BigInteger n) {
+        BigInteger factor = perfectPowerRoot(n);
+        if (factor == null) factor = pollardRho(n, RHO_ITERATIONS);
+        if (factor == null) factor = pollardPMinus1(n, P_MINUS_1_BOUND);
+        for (int level = 0; factor == null && level < ecmLevels; level++) {
+            factor = ecm(n, ECM_BOUNDS[level], ECM_CURVES[level]);
+        }
+        return factor;
+    }
+
+    /**
+     * Finds the smallest prime factor in the small prime table.
+     * @param n - The number to divide, at least 2.
+     * @return The smallest factor of n below {@link SmallPrimes#LIMIT} that is less than n, or null if there is none.
+     */
+    public BigInteger trialDivision(BigInteger n) {
+        if (!n.testBit(0)) {
+            return n.equals(BigInteger.TWO) ? null : BigInteger.TWO;
+        }
+        int[] residues = new int[SmallPrimes.count()];
+        SmallPrimes.residues(n, residues.length, residues);
+        for (int i = 0; i < residues.length; i++) {
+            if (residues[i] == 0 && n.compareTo(BigInteger.valueOf(SmallPrimes.get(i))) > 0) {
+                return BigInteger.valueOf(SmallPrimes.get(i));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Divides out every factor below {@link SmallPrimes#LIMIT}, adding each to primes.
+     * @return What is left of n.
+     */
+    private static BigInteger stripSmallFactors(BigInteger n, List<BigInteger> primes) {
+        int twos = n.getLowestSetBit();
+        for (int i = 0; i < twos; i++) {
+            primes.add(BigInteger.TWO);
+        }
+        n = n.shiftRight(twos);
+        int[] residues = new int[SmallPrimes.count()];
+        SmallPrimes.residues(n, residues.length, residues);
+        for (int i = 0; i < residues.length; i++) {
+            if (residues[i] != 0) {
+                continue;
+            }
+            BigInteger p = BigInteger.valueOf(SmallPrimes.get(i));
+            BigInteger[] qr;
+            while ((qr = n.divideAndRemainder(p))[1].signum() == 0) {
+                primes.add(p);
+                n = qr[0];
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Only prime exponents are tried, since r^(ab) is also (r^a)^b, and only up to
+     * (bitLength - 1) / {@link #ROOT_MIN_LOG2}, past which the root would be below the trial-division limit.
+     * @return r if n = r^k for some k >= 2, otherwise null.
+     */
+    private static BigInteger perfectPowerRoot(BigInteger n) {
+        int maxExponent = (n.bitLength() - 1) / ROOT_MIN_LOG2;
+        for (int i = -1; i < SmallPrimes.count(); i++) {
+            int k = i < 0 ? 2 : SmallPrimes.get(i);
+            if (k > maxExponent) {
+                break;
+            }
+            BigInteger root = root(n, k);
+            if (root.pow(k).equals(n)) {
+                return root;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The integer k-th root of n, rounded down, by Newton's method from above.
+     */
+    private static BigInteger root(BigInteger n, int k) {
+        if (k == 2) {
+            return n.sqrt();
+        }
+        BigInteger bigK = BigInteger.valueOf(k);
+        BigInteger kMinusOne = BigInteger.valueOf(k - 1);
+        BigInteger x = BigInteger.ONE.shiftLeft((n.bitLength() + k - 1) / k);
+        while (true) {
+            BigInteger next = kMinusOne.multiply(x).add(n.divide(x.pow(k - 1))).divide(bigK);
+            if (next.compareTo(x) >= 0) {
+                return x;
+            }
+            x = next;
+        }
+    }
+
+    /**
+     * Pollard's rho with Brent's cycle detection. Differences are multiplied together and checked
+     * with one gcd per batch, backing up one step at a time only when a batch overshoots to n.
+     * @param n - An odd composite.
+     * @param maxIterations - The number of steps after which to give up.
+     * @return A nontrivial factor of n, or null if none was found within the budget.
+     */
+    public BigInteger pollardRho(BigInteger n, long maxIterations) {
+        if (n.bitLength() < 63) {
+            long factor = pollardRho(n.longValue(), maxIterations);
+            return factor == 0 ? null : BigInteger.valueOf(factor);
+        }
+        Random random = randomSource.get();
+        long iterations = 0;
+        while (iterations < maxIterations) {
+            BigInteger c = PrimeChecker.getRandomBigIntegerInRange(BigInteger.ONE, n.subtract(BigInteger.TWO), random);
+            BigInteger y = PrimeChecker.getRandomBigIntegerInRange(BigInteger.ZERO, n.subtract(BigInteger.ONE), random);
+            BigInteger x = y;
+            BigInteger ys = y;
+            BigInteger q = BigInteger.ONE;
+            BigInteger g = BigInteger.ONE;
+            for (long r = 1; g.equals(BigInteger.ONE) && iterations < maxIterations; r <<= 1) {
+                x = y;
+                for (long i = 0; i < r; i++) {
+                    y = y.multiply(y).add(c).mod(n);
+                }
+                for (long k = 0; k < r && g.equals(BigInteger.ONE); k += RHO_BATCH) {
+                    ys = y;
+                    long batch = Math.min(RHO_BATCH, r - k);
+                    for (long i = 0; i < batch; i++) {
+                        y = y.multiply(y).add(c).mod(n);
+                        q = q.multiply(x.subtract(y).abs()).mod(n);
+                    }
+                    iterations += batch;
+                    g = q.gcd(n);
+                }
+            }
+            if (g.equals(n)) {
+                // The batch overshot; step through it again one gcd at a time
+                do {
+                    ys = ys.multiply(ys).add(c).mod(n);
+                    g = x.subtract(ys).gcd(n);
+                } while (g.equals(BigInteger.ONE));
+            }
+            if (!g.equals(BigInteger.ONE) && !g.equals(n)) {
+                return g;
+            }
+            // g == n means x and y met modulo every factor at once; retry with another c
+        }
+        return null;
+    }
+
+    /**
+     * Brent's rho on a long, with the arithmetic done in Montgomery form through {@link LongPrimality}.
+     * Multiplying by 2^-64 does not change which primes divide a difference, so gcds need no conversion.
+     * @return A nontrivial factor, or 0 if none was found within the budget.
+     */
+    private long pollardRho(long n, long maxIterations) {
+        if ((n & 1) == 0) {
+            return 2;
+        }
+        long inv = LongPrimality.inverse(n);
+        Random random = randomSource.get();
+        long iterations = 0;
+        while (iterations < maxIterations) {
+            long c = 1 + Math.floorMod(random.nextLong(), n - 1);
+            long y = Math.floorMod(random.nextLong(), n);
+            long x = y;
+            long ys = y;
+            long q = 1;
+            long g = 1;
+            for (long r = 1; g == 1 && iterations < maxIterations; r <<= 1) {
+                x = y;
+                for (long i = 0; i < r; i++) {
+                    y = LongPrimality.addMod(LongPrimality.multiply(y, y, n, inv), c, n);
+                }
+                for (long k = 0; k < r && g == 1; k += RHO_BATCH) {
+                    ys = y;
+                    long batch = Math.min(RHO_BATCH, r - k);
+                    for (long i = 0; i < batch; i++) {
+                        y = LongPrimality.addMod(LongPrimality.multiply(y, y, n, inv), c, n);
+                        q = LongPrimality.multiply(q, Math.abs(x - y), n, inv);
+                    }
+                    iterations += batch;
+                    g = gcd(q, n);
+                }
+            }
+            if (g == n) {
+                do {
+                    ys = LongPrimality.addMod(LongPrimality.multiply(ys, ys, n, inv), c, n);
+                    g = gcd(Math.abs(x - ys), n);
+                } while (g == 1);
+            }
+            if (g != 1 && g != n) {
+                return g;
+            }
+        }
+        return 0;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Pollard's p - 1, stage 1: finds a prime factor p when every prime power dividing p - 1 is at most bound.
+     * @param n - An odd composite.
+     * @param bound - The smoothness bound.
+     * @return A nontrivial factor of n, or null if none was found.
+     */
+    public BigInteger pollardPMinus1(BigInteger n, int bound) {
+        long[] primes = SegmentedSieve.primes(2, (long) bound + 1).toArray();
+        BigInteger a = BigInteger.TWO;
+        final int batch = 64;
+        for (int start = 0; start < primes.length; start += batch) {
+            BigInteger saved = a;
+            int end = Math.min(primes.length, start + batch);
+            for (int i = start; i < end; i++) {
+                a = a.modPow(BigInteger.valueOf(primePower(primes[i], bound)), n);
+            }
+            BigInteger g = a.subtract(BigInteger.ONE).gcd(n);
+            if (g.equals(BigInteger.ONE)) {
+                continue;
+            }
+            if (!g.equals(n)) {
+                return g;
+            }
+            // Every factor appeared in the same batch; redo it one prime at a time
+            a = saved;
+            for (int i = start; i < end; i++) {
+                a = a.modPow(BigInteger.valueOf(primePower(primes[i], bound)), n);
+                g = a.subtract(BigInteger.ONE).gcd(n);
+                if (!g.equals(BigInteger.ONE)) {
+                    return g.equals(n) ? null : g;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The largest power of p that is at most bound.
+     */
+    private static long primePower(long p, long bound) {
+        long power = p;
+        while (power <= bound / p) {
+            power *= p;
+        }
+        return power;
+    }
+
+    /**
+     * Runs stage 1 of ECM on up to the given number of random curves, spread over the pool.
+     * All curves stop as soon as one finds a factor.
+     * @param n - An odd composite with no factor below the small prime table.
+     * @param bound - The stage-1 bound of every curve.
+     * @param curves - The number of curves to try.
+     * @return A nontrivial factor of n, or null if none of the curves found one.
+     */
+    public BigInteger ecm(BigInteger n, int bound, int curves) {
+        long[] primes = SegmentedSieve.primes(2, (long) bound + 1).toArray();
+        AtomicInteger remaining = new AtomicInteger(curves);
+        AtomicReference<BigInteger> found = new AtomicReference<>();
+        int tasks = Math.min(parallelism, curves);
+        ForkJoinTask<?>[] searches = new ForkJoinTask<?>[tasks];
+        for (int i = 0; i < tasks; i++) {
+            searches[i] = pool.submit(() -> {
+                Random random = randomSource.get();
+                while (found.get() == null && remaining.getAndDecrement() > 0) {
+                    BigInteger factor = ecmCurve(n, primes, bound, random, found);
+                    if (factor != null) {
+                        found.compareAndSet(null, factor);
+                    }
+                }
+            });
+        }
+        for (ForkJoinTask<?> search : searches) {
+            search.join();
+        }
+        return found.get();
+    }
+
+    /**
+     * Stage 1 on one Montgomery curve chosen with Suyama's parametrisation, which makes the group
+     * order divisible by 12 and so more likely to be smooth.
+     * @return A nontrivial factor, or null if this curve found none or another curve already succeeded.
+     */
+    private static BigInteger ecmCurve(BigInteger n, long[] primes, int bound, Random random,
+            AtomicReference<BigInteger> found) {
+        BigInteger sigma = PrimeChecker.getRandomBigIntegerInRange(BigInteger.valueOf(6), n.subtract(BigInteger.ONE), random);
+        BigInteger u = sigma.multiply(sigma).subtract(BigInteger.valueOf(5)).mod(n);
+        BigInteger v = sigma.shiftLeft(2).mod(n);
+        BigInteger u3 = u.modPow(BigInteger.valueOf(3), n);
+        BigInteger denominator = u3.multiply(v).shiftLeft(4).mod(n);
+        BigInteger g = denominator.gcd(n);
+        if (!g.equals(BigInteger.ONE)) {
+            // A curve whose setup is not invertible has already found a factor, unless it is n itself
+            return g.equals(n) ? null : g;
+        }
+        // a24 = (A + 2) / 4 = (v - u)^3 (3u + v) / (16 u^3 v)
+        BigInteger a24 = v.subtract(u).modPow(BigInteger.valueOf(3), n)
+                .multiply(u.multiply(BigInteger.valueOf(3)).add(v)).multiply(denominator.modInverse(n)).mod(n);
+
+        BigInteger[] point = {u3, v.modPow(BigInteger.valueOf(3), n)};
+        for (long p : primes) {
+            if (found.get() != null) {
+                return null;
+            }
+            point = ladder(point, BigInteger.valueOf(primePower(p, bound)), a24, n);
+        }
+        g = point[1].gcd(n);
+        return g.equals(BigInteger.ONE) || g.equals(n) ? null : g;
+    }
+
+    /**
+     * Montgomery ladder on X:Z coordinates.
+     * @return k times the given point.
+     */
+    private static BigInteger[] ladder(BigInteger[] p, BigInteger k, BigInteger a24, BigInteger n) {
+        BigInteger[] r0 = p;
+        BigInteger[] r1 = doublePoint(p, a24, n);
+        for (int i = k.bitLength() - 2; i >= 0; i--) {
+            if (k.testBit(i)) {
+                r0 = addPoints(r0, r1, p, n);
+                r1 = doublePoint(r1, a24, n);
+            } else {
+                r1 = addPoints(r0, r1, p, n);
+                r0 = doublePoint(r0, a24, n);
+            }
+        }
+        return r0;
+    }
+
+    private static BigInteger[] doublePoint(BigInteger[] p, BigInteger a24, BigInteger n) {
+        BigInteger sum = p[0].add(p[1]);
+        BigInteger difference = p[0].subtract(p[1]);
+        BigInteger sumSquared = sum.multiply(sum).mod(n);
+        BigInteger differenceSquared = difference.multiply(difference).mod(n);
+        BigInteger t = sumSquared.subtract(differenceSquared);
+        return new BigInteger[] {
+            sumSquared.multiply(differenceSquared).mod(n),
+            t.multiply(differenceSquared.add(a24.multiply(t))).mod(n)
+        };
+    }
+
+    /**
+     * Differential addition: p + q given p - q.
+     */
+    private static BigInteger[] addPoints(BigInteger[] p, BigInteger[] q, BigInteger[] difference, BigInteger n) {
+        BigInteger u = p[0].subtract(p[1]).multiply(q[0].add(q[1]));
+        BigInteger v = p[0].add(p[1]).multiply(q[0].subtract(q[1]));
+        BigInteger sum = u.add(v);
+        BigInteger diff = u.subtract(v);
+        return new BigInteger[] {
+            difference[1].multiply(sum.multiply(sum)).mod(n),
+            difference[0].multiply(diff.multiply(diff)).mod(n)
+        };
+    }
+}
@@ -1,8 +1,42 @@
 package utils;
 
 import java.math.BigInteger;
+import java.util.Random;
 
 public class Fermats implements PrimeChecker {
+
+    private final RandomSource candidateSource;
+    private final RandomSource witnessSource;
+    private final PrimeMetrics metrics;
+    private final boolean instrumented;
+
+    /**
+     * Creates a checker that draws candidates and bases from the shared secureRandom.
+     */
+    public Fermats() {
+        this(RandomSource.shared(), RandomSource.shared());
+    }
+
+    /**
+     * @param candidateSource the source of random starting points in generatePrime
+     * @param witnessSource   the source of random bases in isPrime, which need not be cryptographically strong
+     */
+    public Fermats(RandomSource candidateSource, RandomSource witnessSource) {
+        this(candidateSource, witnessSource, PrimeMetrics.NONE);
+    }
+
+    /**
+     * @param candidateSource the source of random starting points in generatePrime
+     * @param witnessSource   the source of random bases in isPrime, which need not be cryptographically strong
+     * @param metrics         the listener told about candidates, rounds and latencies
+     */
+    public Fermats(RandomSource candidateSource, RandomSource witnessSource, PrimeMetrics metrics) {
+        this.candidateSource = candidateSource;
+        this.witnessSource = witnessSource;
+        this.metrics = metrics;
+        this.instrumented = metrics != PrimeMetrics.NONE;
+    }
+
     /**
      * Checks if a number is probably prime using Fermat's Little Theorem.
      *
@@ -12,16 +46,36 @@ public class Fermats implements PrimeChecker {
      */
     @Override
     public boolean isPrime(BigInteger n, int iterations) {
+        if (!instrumented) {
+            return test(n, iterations);
+        }
+        long start = System.nanoTime();
+        boolean prime = test(n, iterations);
+        metrics.isPrimeCompleted(n.bitLength(), System.nanoTime() - start, prime);
+        if (!prime) {
+            metrics.rejected("fermat", n.bitLength(), 1);
+        }
+        return prime;
+    }
+
+    private boolean test(BigInteger n, int iterations) {
         if (n.compareTo(BigInteger.TWO) < 0) return false;
-        if (n.equals(BigInteger.TWO)) return true;
+        if (n.bitLength() <= 64) return LongPrimality.isPrimeUnsigned(n.longValue());
         if (n.mod(BigInteger.TWO).equals(BigInteger.ZERO)) return false;
 
+        Random random = witnessSource.get();
+        BigInteger nMinusOne = n.subtract(BigInteger.ONE);
+        BigInteger nMinusTwo = n.subtract(BigInteger.TWO);
         for (int i = 0; i < iterations; i++) {
+            long start = instrumented ? System.nanoTime() : 0;
             // Choose a randomly in the range [2, n - 2]
-            BigInteger a = PrimeChecker.getRandomBigIntegerInRange(BigInteger.TWO, n.subtract(BigInteger.TWO));
+            BigInteger a = PrimeChecker.getRandomBigIntegerInRange(BigInteger.TWO, nMinusTwo, random);
+            long drawn = instrumented ? System.nanoTime() : 0;
 
             // a^(n-1) mod n should be 1
-            if (!a.modPow(n.subtract(BigInteger.ONE), n).equals(BigInteger.ONE)) {
+            boolean passed = a.modPow(nMinusOne, n).equals(BigInteger.ONE);
+            if (instrumented) metrics.witnessRound(System.nanoTime() - drawn, drawn - start);
+            if (!passed) {
                 return false;
             }
         }
@@ -37,15 +91,20 @@ public class Fermats implements PrimeChecker {
      * @return a prime number within the specified range.
      */
     @Override
-    public BigInteger generatePrime(int bitLength, int certainty) {        
+    public BigInteger generatePrime(int bitLength, int certainty) {
+        long start = instrumented ? System.nanoTime() : 0;
+        // Walk sieved candidates from one random starting point instead of redrawing on every failure
+        CandidateSieve candidates = new CandidateSieve(bitLength, candidateSource.get());
         BigInteger candidate;
         do {
-            candidate = new BigInteger(bitLength, secureRandom);
-            // Ensure the candidate is odd to increase efficiency
-            if (!candidate.testBit(0)) {
-                candidate = candidate.add(BigInteger.ONE);
-            }
+            candidate = candidates.next();
+            if (instrumented) metrics.candidateDrawn(bitLength);
         } while (!this.isPrime(candidate, certainty));
+
+        if (instrumented) {
+            metrics.rejected("sieve", bitLength, candidates.sieved());
+            metrics.generatePrimeCompleted(bitLength, System.nanoTime() - start);
+        }
         return candidate;
     }
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+package utils;
+
+import java.math.BigInteger;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Assembles RSA key pairs from a {@link PrimePool} ahead of demand. Assembler threads pull
+ * p and q from the pool, build the key pair and park it in a bounded queue, so a caller only
+ * pays for a queue lookup.
+ */
+public class KeyPairPipeline implements AutoCloseable {
+
+    private final PrimePool pool;
+    private final int modulusBits;
+    private final int primeBits;
+    private final BigInteger publicExponent;
+    private final int assemblers;
+    private final BlockingQueue<RSAKeyPair> keyPairs;
+    private final ExecutorService executor;
+    private final LongAdder assembled = new LongAdder();
+    private final LongAdder rejectedPrimes = new LongAdder();
+
+    /**
+     * @param pool - The pool to draw primes from; it must hold primes of modulusBits / 2 bits.
+     * @param modulusBits - The exact bit length of every modulus produced, which must be even.
+     * @param publicExponent - The public exponent e.
+     * @param capacity - The maximum number of assembled key pairs held ready.
+     * @param assemblers - The number of assembler threads.
+     */
+    public KeyPairPipeline(PrimePool pool, int modulusBits, BigInteger publicExponent, int capacity, int assemblers) {
+        if (modulusBits % 2 != 0) {
+            throw new IllegalArgumentException("modulusBits must be even");
+        }
+        this.pool = pool;
+        this.modulusBits = modulusBits;
+        this.primeBits = modulusBits / 2;
+        this.publicExponent = publicExponent;
+        this.assemblers = assemblers;
+        this.keyPairs = new ArrayBlockingQueue<>(capacity);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(assemblers, runnable -> {
+            Thread thread = new Thread(runnable, "keypair-assembler-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts the assembler threads. The prime pool must be started separately.
+     */
+    public void start() {
+        for (int i = 0; i < assemblers; i++) {
+            executor.execute(this::assemble);
+        }
+    }
+
+    /**
+     * Takes an assembled key pair, waiting if none is ready.
+     * @return A fresh key pair.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public RSAKeyPair take() throws InterruptedException {
+        return keyPairs.take();
+    }
+
+    /**
+     * Takes an assembled key pair, waiting at most the given time.
+     * @param timeout - How long to wait before giving up.
+     * @param unit - The unit of the timeout.
+     * @return A fresh key pair, or null if none became available in time.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public RSAKeyPair poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return keyPairs.poll(timeout, unit);
+    }
+
+    /**
+     * @return The number of key pairs ready to be taken.
+     */
+    public int available() {
+        return keyPairs.size();
+    }
+
+    /**
+     * @return The number of key pairs assembled since start.
+     */
+    public long assembled() {
+        return assembled.sum();
+    }
+
+    /**
+     * @return The number of primes discarded because p - 1 shared a factor with e.
+     */
+    public long rejectedPrimes() {
+        return rejectedPrimes.sum();
+    }
+
+    /**
+     * Stops the assembler threads. Key pairs already assembled can still be taken.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void assemble() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                keyPairs.put(nextKeyPair());
+                assembled.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private RSAKeyPair nextKeyPair() throws InterruptedException {
+        return RSAKeyPair.fromPrimeSource(modulusBits, publicExponent, new RSAKeyPair.PrimeSource() {
+            @Override
+            public BigInteger next(int bitLength) throws InterruptedException {
+                return usablePrime();
+            }
+
+            @Override
+            public void giveBack(int bitLength, BigInteger prime) {
+                // Too short with this partner, but it may still pair with another prime later
+                pool.offer(primeBits, prime);
+            }
+        });
+    }
+
+    /**
+     * Takes primes until one has p - 1 coprime to e, so that d exists.
+     */
+    private BigInteger usablePrime() throws InterruptedException {
+        while (true) {
+            BigInteger prime = pool.take(primeBits);
+            if (prime.subtract(BigInteger.ONE).gcd(publicExponent).equals(BigInteger.ONE)) {
+                return prime;
+            }
+            rejectedPrimes.increment();
+        }
+    }
+}
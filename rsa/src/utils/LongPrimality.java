@@ -0,0 +1,130 @@
+package utils;
+
+/**
+ * Exact primality for numbers below 2^64 using only primitive long arithmetic.
+ * Miller-Rabin with the bases 2, 3, 5, ..., 37 has no counterexample below 3.3 * 10^24,
+ * so the answer is deterministic. Products are reduced with 64-bit Montgomery multiplication
+ * built on Math.multiplyHigh, so nothing is allocated.
+ * <p>
+ * The BigInteger checkers hand every input of at most 64 bits to this class. At that size the
+ * twelve fixed bases together cost less than one BigInteger modPow round, which allocates on every
+ * multiplication, and the answer is exact instead of probable whatever certainty was asked for.
+ */
+public final class LongPrimality {
+
+    private static final long[] BASES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37};
+
+    private LongPrimality() {
+    }
+
+    /**
+     * @param n - The number to check.
+     * @return true if n is prime, false if it is composite, negative, 0 or 1.
+     */
+    public static boolean isPrime(long n) {
+        return n >= 0 && isPrimeUnsigned(n);
+    }
+
+    /**
+     * @param n - The number to check, read as an unsigned 64-bit value.
+     * @return true if n is prime.
+     */
+    public static boolean isPrimeUnsigned(long n) {
+        if (Long.compareUnsigned(n, 2) < 0) return false;
+        for (long p : BASES) {
+            if (n == p) return true;
+            if (Long.remainderUnsigned(n, p) == 0) return false;
+        }
+        // Every prime factor of n is now above 37, so below 41^2 n must be prime
+        if (Long.compareUnsigned(n, 41 * 41) < 0) return true;
+
+        long nMinusOne = n - 1;
+        int s = Long.numberOfTrailingZeros(nMinusOne);
+        long d = nMinusOne >>> s;
+
+        long inv = inverse(n);
+        long one = Long.remainderUnsigned(-n, n); // 2^64 mod n, i.e. 1 in Montgomery form
+        long minusOne = n - one;
+        long r2 = squareOfR(n, one);
+
+        for (long a : BASES) {
+            long x = pow(multiply(a, r2, n, inv), d, one, n, inv);
+            if (x == one || x == minusOne) continue;
+
+            boolean passed = false;
+            for (int r = 1; r < s; r++) {
+                x = multiply(x, x, n, inv);
+                if (x == minusOne) {
+                    passed = true;
+                    break;
+                }
+                if (x == one) break;
+            }
+            if (!passed) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return n^-1 mod 2^64 for odd n, by Newton iteration (each step doubles the correct low bits).
+     */
+    static long inverse(long n) {
+        long inv = n; // correct to 3 bits for any odd n
+        for (int i = 0; i < 5; i++) {
+            inv *= 2 - n * inv;
+        }
+        return inv;
+    }
+
+    /**
+     * Montgomery product a * b * 2^-64 mod n, for a, b < n and odd n.
+     */
+    static long multiply(long a, long b, long n, long inv) {
+        long lo = a * b;
+        long hi = unsignedMultiplyHigh(a, b);
+        long m = lo * inv;
+        // a * b - m * n has a zero low word, so only the high words remain
+        long mnHi = unsignedMultiplyHigh(m, n);
+        long result = hi - mnHi;
+        return Long.compareUnsigned(hi, mnHi) < 0 ? result + n : result;
+    }
+
+    /**
+     * Montgomery exponentiation; base is in Montgomery form and so is the result.
+     */
+    static long pow(long base, long exponent, long one, long n, long inv) {
+        long result = one;
+        while (exponent != 0) {
+            if ((exponent & 1) != 0) {
+                result = multiply(result, base, n, inv);
+            }
+            base = multiply(base, base, n, inv);
+            exponent >>>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * @return 2^128 mod n, which converts a value into Montgomery form in one multiply.
+     */
+    static long squareOfR(long n, long one) {
+        long r = one;
+        for (int i = 0; i < 64; i++) {
+            r = addMod(r, r, n);
+        }
+        return r;
+    }
+
+    static long addMod(long a, long b, long n) {
+        long sum = a + b;
+        // Either the add overflowed 64 bits or it landed at or above n
+        if (Long.compareUnsigned(sum, a) < 0 || Long.compareUnsigned(sum, n) >= 0) {
+            sum -= n;
+        }
+        return sum;
+    }
+
+    static long unsignedMultiplyHigh(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+}
@@ -1,9 +1,42 @@
 package utils;
 
 import java.math.BigInteger;
+import java.util.Random;
 
 public class MillerRabin implements PrimeChecker {
 
+    private final RandomSource candidateSource;
+    private final RandomSource witnessSource;
+    private final PrimeMetrics metrics;
+    private final boolean instrumented;
+
+    /**
+     * Creates a checker that draws candidates and witnesses from the shared secureRandom.
+     */
+    public MillerRabin() {
+        this(RandomSource.shared(), RandomSource.shared());
+    }
+
+    /**
+     * @param candidateSource - The source of random starting points in generatePrime.
+     * @param witnessSource - The source of random witnesses in isPrime, which need not be cryptographically strong.
+     */
+    public MillerRabin(RandomSource candidateSource, RandomSource witnessSource) {
+        this(candidateSource, witnessSource, PrimeMetrics.NONE);
+    }
+
+    /**
+     * @param candidateSource - The source of random starting points in generatePrime.
+     * @param witnessSource - The source of random witnesses in isPrime, which need not be cryptographically strong.
+     * @param metrics - The listener told about candidates, rounds and latencies.
+     */
+    public MillerRabin(RandomSource candidateSource, RandomSource witnessSource, PrimeMetrics metrics) {
+        this.candidateSource = candidateSource;
+        this.witnessSource = witnessSource;
+        this.metrics = metrics;
+        this.instrumented = metrics != PrimeMetrics.NONE;
+    }
+
     /**
      * Check if a number is prime using Miller-Rabin primality test method.
      * @param n - The number to check for primality, as a BigInteger.
@@ -12,16 +45,28 @@ public class MillerRabin implements PrimeChecker {
      */
     @Override
     public boolean isPrime(BigInteger n, int iterations) {
-        if (n.compareTo(BigInteger.ONE) <= 0 || n.equals(BigInteger.valueOf(4))) return false;
-        if (n.compareTo(BigInteger.valueOf(3)) <= 0) return true;
-
-        BigInteger d = n.subtract(BigInteger.ONE);
-        while (d.mod(BigInteger.TWO).equals(BigInteger.ZERO)) {
-            d = d.divide(BigInteger.TWO);
+        if (!instrumented) {
+            return test(n, iterations);
         }
+        long start = System.nanoTime();
+        boolean prime = test(n, iterations);
+        metrics.isPrimeCompleted(n.bitLength(), System.nanoTime() - start, prime);
+        if (!prime) {
+            metrics.rejected("millerRabin", n.bitLength(), 1);
+        }
+        return prime;
+    }
 
+    private boolean test(BigInteger n, int iterations) {
+        if (n.compareTo(BigInteger.ONE) <= 0) return false;
+        if (n.bitLength() <= 64) return LongPrimality.isPrimeUnsigned(n.longValue());
+        if (!n.testBit(0)) return false;
+
+        // n - 1 = 2^s * d is derived once and shared by every round
+        MillerRabinContext context = new MillerRabinContext(n);
+        Random random = witnessSource.get();
         for (int i = 0; i < iterations; i++) {
-            if (!this.millerRabinTest(d, n)) {
+            if (!this.millerRabinTest(context, random)) {
                 return false;
             }
         }
@@ -36,42 +81,49 @@ public class MillerRabin implements PrimeChecker {
      */
     @Override
     public BigInteger generatePrime(int bitLength, int certainty) {
+        long start = instrumented ? System.nanoTime() : 0;
+        CandidateSieve candidates = new CandidateSieve(bitLength, candidateSource.get());
         BigInteger primeCandidate;
 
-        // Generate a random prime candidate and test for primality
+        // Take candidates that survived the small prime sieve and test for primality
         do {
-            primeCandidate = new BigInteger(bitLength, secureRandom);
-            // Ensure the candidate is odd to increase efficiency
-            if (!primeCandidate.testBit(0)) {
-                primeCandidate = primeCandidate.add(BigInteger.ONE);
-            }
+            primeCandidate = candidates.next();
+            if (instrumented) metrics.candidateDrawn(bitLength);
         } while (!this.isPrime(primeCandidate, certainty));
 
+        if (instrumented) {
+            metrics.rejected("sieve", bitLength, candidates.sieved());
+            metrics.generatePrimeCompleted(bitLength, System.nanoTime() - start);
+        }
         return primeCandidate;
     }
 
-    
     /**
-     * Performs the Miller-Rabin primality test on a given number.
-     * @param d - The exponent derived from n-1 where n = 2^d * r + 1.
-     * @param n - The number to test for primality.
-     * @return true if n is probably prime, false otherwise.
+     * Finds the next probable prime after n by walking sieved odd numbers, like BigInteger.nextProbablePrime.
+     * Use {@link PrimeStreams#primesAfter} to keep walking without re-sieving for each prime.
+     * @param n - The number to start after.
+     * @param certainty - The number of rounds each candidate must pass.
+     * @return The smallest probable prime greater than n.
      */
-    private boolean millerRabinTest(BigInteger d, BigInteger n) {
-        BigInteger a = PrimeChecker.getRandomBigIntegerInRange(BigInteger.TWO, n.subtract(BigInteger.TWO));
-        BigInteger x = a.modPow(d, n);
-
-        if (x.equals(BigInteger.ONE) || x.equals(n.subtract(BigInteger.ONE))) {
-            return true;
-        }
-
-        while (!d.equals(n.subtract(BigInteger.ONE))) {
-            x = x.multiply(x).mod(n);
-            d = d.multiply(BigInteger.TWO);
+    public BigInteger nextProbablePrime(BigInteger n, int certainty) {
+        return PrimeStreams.walk(this, n, certainty).next();
+    }
 
-            if (x.equals(BigInteger.ONE)) return false;
-            if (x.equals(n.subtract(BigInteger.ONE))) return true;
+    /**
+     * Performs one round of the Miller-Rabin primality test with a random witness.
+     * @param context - The precomputed decomposition of the number under test.
+     * @param random - The generator the witness is drawn from.
+     * @return true if n is probably prime, false otherwise.
+     */
+    private boolean millerRabinTest(MillerRabinContext context, Random random) {
+        if (!instrumented) {
+            return context.passes(context.randomWitness(random));
         }
-        return false;
+        long start = System.nanoTime();
+        BigInteger witness = context.randomWitness(random);
+        long drawn = System.nanoTime();
+        boolean passed = context.passes(witness);
+        metrics.witnessRound(System.nanoTime() - drawn, drawn - start);
+        return passed;
     }
 }
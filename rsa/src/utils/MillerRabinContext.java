@@ -0,0 +1,75 @@
+package utils;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Per-candidate state for the Miller-Rabin test. It only precomputes n - 1, n - 2 and the
+ * split n - 1 = 2^s * d, so each witness round skips those subtractions and shifts. A round is
+ * still one modPow followed by up to s - 1 plain multiply-and-mod squarings.
+ */
+public final class MillerRabinContext {
+
+    private final BigInteger n;
+    private final BigInteger nMinusOne;
+    private final BigInteger nMinusTwo;
+    private final BigInteger d;
+    private final int s;
+
+    /**
+     * @param n - The odd number under test, at least 5.
+     */
+    public MillerRabinContext(BigInteger n) {
+        if (!n.testBit(0) || n.compareTo(BigInteger.valueOf(5)) < 0) {
+            throw new IllegalArgumentException("n must be odd and at least 5");
+        }
+        this.n = n;
+        this.nMinusOne = n.subtract(BigInteger.ONE);
+        this.nMinusTwo = n.subtract(BigInteger.TWO);
+        this.s = nMinusOne.getLowestSetBit();
+        this.d = nMinusOne.shiftRight(s);
+    }
+
+    /**
+     * @return The number under test.
+     */
+    public BigInteger modulus() {
+        return n;
+    }
+
+    /**
+     * Draws a witness uniformly from [2, n - 2].
+     * @return A random witness for this candidate.
+     */
+    public BigInteger randomWitness() {
+        return randomWitness(PrimeChecker.secureRandom);
+    }
+
+    /**
+     * Draws a witness uniformly from [2, n - 2].
+     * @param random - The generator to draw from.
+     * @return A random witness for this candidate.
+     */
+    public BigInteger randomWitness(Random random) {
+        return PrimeChecker.getRandomBigIntegerInRange(BigInteger.TWO, nMinusTwo, random);
+    }
+
+    /**
+     * Runs one strong probable-prime round.
+     * @param a - The witness, in the range [2, n - 2].
+     * @return false if a proves n composite, true otherwise.
+     */
+    public boolean passes(BigInteger a) {
+        BigInteger x = a.modPow(d, n);
+        if (x.equals(BigInteger.ONE) || x.equals(nMinusOne)) {
+            return true;
+        }
+
+        for (int r = 1; r < s; r++) {
+            x = x.multiply(x).mod(n);
+            if (x.equals(nMinusOne)) return true;
+            if (x.equals(BigInteger.ONE)) return false;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,177 @@
+package utils;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Miller-Rabin primality checker that spreads its work over a fork-join pool.
+ * isPrime fans the witness rounds for one number out across the pool, and generatePrime races
+ * several independently sieved candidate streams. Outstanding work stops as soon as one round
+ * proves compositeness or one candidate is accepted.
+ */
+public class ParallelMillerRabin implements PrimeChecker {
+
+    /** Below this size a round is cheaper than handing it to another thread. */
+    private static final int PARALLEL_THRESHOLD_BITS = 256;
+
+    private final ForkJoinPool pool;
+    private final int parallelism;
+    private final RandomSource candidateSource;
+    private final RandomSource witnessSource;
+
+    /**
+     * Creates a checker that runs on the common fork-join pool.
+     */
+    public ParallelMillerRabin() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a checker whose pool threads each draw from their own SecureRandom, so the
+     * concurrent searches do not contend on one generator.
+     * @param pool - The pool that witness rounds and candidate searches are submitted to.
+     */
+    public ParallelMillerRabin(ForkJoinPool pool) {
+        this(pool, RandomSource.perThread(SecureRandom::new), RandomSource.perThread(SecureRandom::new));
+    }
+
+    /**
+     * @param pool - The pool that witness rounds and candidate searches are submitted to.
+     * @param candidateSource - The source of random starting points, called from every pool thread.
+     * @param witnessSource - The source of random witnesses, called from every pool thread.
+     */
+    public ParallelMillerRabin(ForkJoinPool pool, RandomSource candidateSource, RandomSource witnessSource) {
+        this.pool = pool;
+        this.parallelism = Math.max(1, pool.getParallelism());
+        this.candidateSource = candidateSource;
+        this.witnessSource = witnessSource;
+    }
+
+    /**
+     * Check if a number is prime, evaluating the witness rounds concurrently.
+     * @param n - The number to check for primality, as a BigInteger.
+     * @param iterations - The number of witness rounds to run.
+     * @return - false if n is composite, true if n is probably prime.
+     */
+    @Override
+    public boolean isPrime(BigInteger n, int iterations) {
+        if (n.compareTo(BigInteger.ONE) <= 0) return false;
+        if (n.bitLength() <= 64) return LongPrimality.isPrimeUnsigned(n.longValue());
+        if (!n.testBit(0)) return false;
+
+        MillerRabinContext context = new MillerRabinContext(n);
+        AtomicBoolean composite = new AtomicBoolean();
+        if (n.bitLength() < PARALLEL_THRESHOLD_BITS || iterations <= 1) {
+            runRounds(context, witnessSource, iterations, composite);
+        } else {
+            int grain = Math.max(1, iterations / parallelism);
+            pool.invoke(new WitnessRounds(context, witnessSource, 0, iterations, grain, composite));
+        }
+        return !composite.get();
+    }
+
+    /**
+     * Generates a prime number of a specified bit length by racing one candidate search per pool thread.
+     * @param bitLength - The bit length of the prime number to generate.
+     * @param certainty - The number of witness rounds each accepted candidate must pass.
+     * @return A prime number of the specified bit length.
+     */
+    @Override
+    public BigInteger generatePrime(int bitLength, int certainty) {
+        AtomicReference<BigInteger> found = new AtomicReference<>();
+        ForkJoinTask<?>[] searches = new ForkJoinTask<?>[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            searches[i] = pool.submit(() -> search(bitLength, certainty, found));
+        }
+        for (ForkJoinTask<?> search : searches) {
+            search.join();
+        }
+        return found.get();
+    }
+
+    /**
+     * Walks one sieved candidate stream until this or another search has accepted a prime.
+     */
+    private void search(int bitLength, int certainty, AtomicReference<BigInteger> found) {
+        CandidateSieve candidates = new CandidateSieve(bitLength, candidateSource.get());
+        while (found.get() == null) {
+            BigInteger candidate = candidates.next();
+            if (candidate.compareTo(BigInteger.valueOf(3)) <= 0) {
+                found.compareAndSet(null, candidate);
+                return;
+            }
+            // The other searches already occupy the pool, so rounds for one candidate stay on this thread
+            AtomicBoolean composite = new AtomicBoolean();
+            if (runRounds(new MillerRabinContext(candidate), witnessSource, certainty, composite, found) && !composite.get()) {
+                found.compareAndSet(null, candidate);
+            }
+        }
+    }
+
+    private static void runRounds(MillerRabinContext context, RandomSource witnessSource, int rounds,
+            AtomicBoolean composite) {
+        runRounds(context, witnessSource, rounds, composite, null);
+    }
+
+    /**
+     * Runs witness rounds until one fails, another task reports compositeness, or a prime is found elsewhere.
+     * @return false if the rounds were abandoned because another search already succeeded.
+     */
+    private static boolean runRounds(MillerRabinContext context, RandomSource witnessSource, int rounds,
+            AtomicBoolean composite, AtomicReference<BigInteger> found) {
+        Random random = witnessSource.get();
+        for (int i = 0; i < rounds && !composite.get(); i++) {
+            if (found != null && found.get() != null) {
+                return false;
+            }
+            if (!context.passes(context.randomWitness(random))) {
+                composite.set(true);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits a range of witness rounds in half until it is no larger than the grain size.
+     */
+    private static final class WitnessRounds extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final MillerRabinContext context;
+        private final RandomSource witnessSource;
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final AtomicBoolean composite;
+
+        WitnessRounds(MillerRabinContext context, RandomSource witnessSource, int from, int to, int grain,
+                AtomicBoolean composite) {
+            this.context = context;
+            this.witnessSource = witnessSource;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.composite = composite;
+        }
+
+        @Override
+        protected void compute() {
+            if (composite.get()) {
+                return;
+            }
+            if (to - from <= grain) {
+                runRounds(context, witnessSource, to - from, composite);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new WitnessRounds(context, witnessSource, from, mid, grain, composite),
+                    new WitnessRounds(context, witnessSource, mid, to, grain, composite));
+        }
+    }
+}
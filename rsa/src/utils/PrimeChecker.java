@@ -2,6 +2,7 @@ package utils;
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.Random;
 
 public interface PrimeChecker {
 
@@ -30,6 +31,17 @@ public interface PrimeChecker {
      * @return A uniformly distributed random BigInteger within the range [min, max].
      */
     public static BigInteger getRandomBigIntegerInRange(BigInteger min, BigInteger max) {
+        return getRandomBigIntegerInRange(min, max, secureRandom);
+    }
+
+    /**
+     * Generates a random BigInteger within the range [min, max] from the given generator.
+     * @param min - The minimum value in the range, inclusive.
+     * @param max - The maximum value in the range, inclusive.
+     * @param random - The generator to draw from.
+     * @return A uniformly distributed random BigInteger within the range [min, max].
+     */
+    public static BigInteger getRandomBigIntegerInRange(BigInteger min, BigInteger max, Random random) {
         if (min.compareTo(max) >= 0) {
             // Direct return if range is invalid or min equals max
             return min;
@@ -40,7 +52,7 @@ public interface PrimeChecker {
     
         BigInteger result;
         do {
-            result = new BigInteger(minLength, secureRandom);
+            result = new BigInteger(minLength, random);
         } while (result.compareTo(range) >= 0);
     
         return result.add(min);
@@ -0,0 +1,30 @@
+package utils;
+
+/**
+ * Looks up PrimeChecker implementations by name, for command-line tools that take the checker as an option.
+ */
+public final class PrimeCheckers {
+
+    private PrimeCheckers() {
+    }
+
+    /**
+     * @param name - The simple class name of a checker in this package.
+     * @param metrics - The listener given to checkers that support one; the others ignore it.
+     * @return A new instance of that checker.
+     * @throws IllegalArgumentException if no checker has that name.
+     */
+    public static PrimeChecker byName(String name, PrimeMetrics metrics) {
+        RandomSource shared = RandomSource.shared();
+        switch (name) {
+            case "MillerRabin": return new MillerRabin(shared, shared, metrics);
+            case "ParallelMillerRabin": return new ParallelMillerRabin();
+            case "Fermats": return new Fermats(shared, shared, metrics);
+            case "BailliePSW": return new BailliePSW(shared, metrics);
+            case "TrialDivision": return new TrialDivision(shared, metrics);
+            case "SafePrimeGenerator": return new SafePrimeGenerator();
+            case "StrongPrimeGenerator": return new StrongPrimeGenerator();
+            default: throw new IllegalArgumentException("Unknown checker " + name);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package utils;
+
+/**
+ * Listener for what a PrimeChecker does internally. Every method has an empty default, and
+ * checkers given {@link #NONE} skip their timing calls entirely, so instrumentation costs
+ * nothing unless a real listener such as {@link PrimeMetricsRecorder} is installed.
+ */
+public interface PrimeMetrics {
+
+    /** The listener checkers use when none is given; it records nothing. */
+    PrimeMetrics NONE = new PrimeMetrics() {
+    };
+
+    /**
+     * A candidate was handed to the primality test by generatePrime.
+     * @param bitLength - The candidate's bit length.
+     */
+    default void candidateDrawn(int bitLength) {
+    }
+
+    /**
+     * Numbers were rejected as composite by one stage.
+     * @param stage - The stage that rejected them, e.g. "sieve", "millerRabin", "fermat", "lucas".
+     * @param bitLength - The bit length of the rejected numbers.
+     * @param count - How many were rejected.
+     */
+    default void rejected(String stage, int bitLength, long count) {
+    }
+
+    /**
+     * One witness round ran.
+     * @param modPowNanos - Time spent in the round's modular exponentiation and squarings.
+     * @param randomNanos - Time spent drawing the round's witness.
+     */
+    default void witnessRound(long modPowNanos, long randomNanos) {
+    }
+
+    /**
+     * An isPrime call finished.
+     * @param bitLength - The bit length of the number checked.
+     * @param nanos - The call's latency.
+     * @param prime - The verdict.
+     */
+    default void isPrimeCompleted(int bitLength, long nanos, boolean prime) {
+    }
+
+    /**
+     * A generatePrime call finished.
+     * @param bitLength - The bit length generated.
+     * @param nanos - The call's latency.
+     */
+    default void generatePrimeCompleted(int bitLength, long nanos) {
+    }
+}
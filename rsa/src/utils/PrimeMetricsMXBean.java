@@ -0,0 +1,33 @@
+package utils;
+
+import java.util.Map;
+
+/**
+ * JMX view of a {@link PrimeMetricsRecorder}. Latency maps are keyed by bit length.
+ */
+public interface PrimeMetricsMXBean {
+
+    long getCandidatesDrawn();
+
+    Map<String, Long> getRejectedByStage();
+
+    long getWitnessRounds();
+
+    long getModPowNanos();
+
+    long getRandomNanos();
+
+    long getIsPrimeCalls();
+
+    long getGeneratePrimeCalls();
+
+    Map<Integer, Long> getIsPrimeP50Nanos();
+
+    Map<Integer, Long> getIsPrimeP99Nanos();
+
+    Map<Integer, Long> getGeneratePrimeP50Nanos();
+
+    Map<Integer, Long> getGeneratePrimeP99Nanos();
+
+    void reset();
+}
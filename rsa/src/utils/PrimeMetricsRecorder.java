@@ -0,0 +1,197 @@
+package utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * A {@link PrimeMetrics} listener that keeps counters and per-bit-length latency histograms,
+ * and can publish them over JMX. All updates are lock-free.
+ */
+public class PrimeMetricsRecorder implements PrimeMetrics, PrimeMetricsMXBean {
+
+    private final LongAdder candidatesDrawn = new LongAdder();
+    private final Map<String, LongAdder> rejectedByStage = new ConcurrentHashMap<>();
+    private final LongAdder witnessRounds = new LongAdder();
+    private final LongAdder modPowNanos = new LongAdder();
+    private final LongAdder randomNanos = new LongAdder();
+    private final Map<Integer, Histogram> isPrimeLatency = new ConcurrentHashMap<>();
+    private final Map<Integer, Histogram> generatePrimeLatency = new ConcurrentHashMap<>();
+
+    /**
+     * Registers this recorder with the platform MBean server.
+     * @param name - Distinguishes this recorder from others, typically the checker's name.
+     * @return The name the recorder was registered under.
+     * @throws JMException if registration fails, for example because the name is taken.
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("utils:type=PrimeMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public void candidateDrawn(int bitLength) {
+        candidatesDrawn.increment();
+    }
+
+    @Override
+    public void rejected(String stage, int bitLength, long count) {
+        rejectedByStage.computeIfAbsent(stage, s -> new LongAdder()).add(count);
+    }
+
+    @Override
+    public void witnessRound(long modPowNanos, long randomNanos) {
+        witnessRounds.increment();
+        this.modPowNanos.add(modPowNanos);
+        this.randomNanos.add(randomNanos);
+    }
+
+    @Override
+    public void isPrimeCompleted(int bitLength, long nanos, boolean prime) {
+        isPrimeLatency.computeIfAbsent(bitLength, b -> new Histogram()).record(nanos);
+    }
+
+    @Override
+    public void generatePrimeCompleted(int bitLength, long nanos) {
+        generatePrimeLatency.computeIfAbsent(bitLength, b -> new Histogram()).record(nanos);
+    }
+
+    @Override
+    public long getCandidatesDrawn() {
+        return candidatesDrawn.sum();
+    }
+
+    @Override
+    public Map<String, Long> getRejectedByStage() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        rejectedByStage.forEach((stage, count) -> snapshot.put(stage, count.sum()));
+        return snapshot;
+    }
+
+    @Override
+    public long getWitnessRounds() {
+        return witnessRounds.sum();
+    }
+
+    @Override
+    public long getModPowNanos() {
+        return modPowNanos.sum();
+    }
+
+    @Override
+    public long getRandomNanos() {
+        return randomNanos.sum();
+    }
+
+    @Override
+    public long getIsPrimeCalls() {
+        return isPrimeLatency.values().stream().mapToLong(Histogram::count).sum();
+    }
+
+    @Override
+    public long getGeneratePrimeCalls() {
+        return generatePrimeLatency.values().stream().mapToLong(Histogram::count).sum();
+    }
+
+    @Override
+    public Map<Integer, Long> getIsPrimeP50Nanos() {
+        return percentiles(isPrimeLatency, 0.50);
+    }
+
+    @Override
+    public Map<Integer, Long> getIsPrimeP99Nanos() {
+        return percentiles(isPrimeLatency, 0.99);
+    }
+
+    @Override
+    public Map<Integer, Long> getGeneratePrimeP50Nanos() {
+        return percentiles(generatePrimeLatency, 0.50);
+    }
+
+    @Override
+    public Map<Integer, Long> getGeneratePrimeP99Nanos() {
+        return percentiles(generatePrimeLatency, 0.99);
+    }
+
+    @Override
+    public void reset() {
+        candidatesDrawn.reset();
+        rejectedByStage.clear();
+        witnessRounds.reset();
+        modPowNanos.reset();
+        randomNanos.reset();
+        isPrimeLatency.clear();
+        generatePrimeLatency.clear();
+    }
+
+    private static Map<Integer, Long> percentiles(Map<Integer, Histogram> histograms, double quantile) {
+        Map<Integer, Long> snapshot = new TreeMap<>();
+        histograms.forEach((bitLength, histogram) -> snapshot.put(bitLength, histogram.percentile(quantile)));
+        return snapshot;
+    }
+
+    /**
+     * Log-linear histogram: four buckets per power of two, so a reported percentile is within 25% of the true value.
+     */
+    static final class Histogram {
+        private static final int SUB_BUCKETS = 4;
+        private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+
+        void record(long value) {
+            buckets.incrementAndGet(index(Math.max(1, value)));
+        }
+
+        long count() {
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                count += buckets.get(i);
+            }
+            return count;
+        }
+
+        /**
+         * @return The upper bound of the bucket holding the given quantile, or 0 when empty.
+         */
+        long percentile(double quantile) {
+            long total = count();
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= target) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(buckets.length() - 1);
+        }
+
+        private static int index(long value) {
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            if (exponent < 2) {
+                return (int) value; // 1, 2 and 3 get exact buckets
+            }
+            int sub = (int) ((value >>> (exponent - 2)) & (SUB_BUCKETS - 1));
+            return exponent * SUB_BUCKETS + sub;
+        }
+
+        private static long upperBound(int index) {
+            int exponent = index / SUB_BUCKETS;
+            if (exponent < 2) {
+                return index;
+            }
+            int sub = index % SUB_BUCKETS;
+            // Bucket covers [2^e + sub * 2^(e-2), 2^e + (sub + 1) * 2^(e-2))
+            return (1L << exponent) + ((long) (sub + 1) << (exponent - 2)) - 1;
+        }
+    }
+}
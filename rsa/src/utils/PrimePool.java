@@ -0,0 +1,205 @@
+package utils;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of pre-generated primes for each configured bit length. Background workers
+ * keep every pool topped up with primes from a {@link PrimeChecker}; once a pool is full the
+ * workers block until primes are taken, so generation never runs ahead of demand.
+ */
+public class PrimePool implements AutoCloseable {
+
+    private final PrimeChecker checker;
+    private final int certainty;
+    private final int workersPerBitLength;
+    private final Map<Integer, Shelf> shelves;
+    private final ExecutorService workers;
+    private volatile long startNanos;
+
+    /**
+     * @param checker - The checker used to generate primes, usually {@link MillerRabin}.
+     * @param certainty - The certainty every pooled prime is generated with.
+     * @param capacity - The maximum number of primes held for each bit length.
+     * @param workersPerBitLength - The number of background threads refilling each bit length.
+     * @param bitLengths - The bit lengths to keep primes for.
+     */
+    public PrimePool(PrimeChecker checker, int certainty, int capacity, int workersPerBitLength, int... bitLengths) {
+        if (capacity < 1 || workersPerBitLength < 1 || bitLengths.length == 0) {
+            throw new IllegalArgumentException("capacity, workers and bit lengths must all be positive");
+        }
+        this.checker = checker;
+        this.certainty = certainty;
+        this.workersPerBitLength = workersPerBitLength;
+
+        Map<Integer, Shelf> shelves = new HashMap<>();
+        for (int bitLength : bitLengths) {
+            shelves.put(bitLength, new Shelf(capacity));
+        }
+        this.shelves = Collections.unmodifiableMap(shelves);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workersPerBitLength * shelves.size(), runnable -> {
+            Thread thread = new Thread(runnable, "prime-pool-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts the background workers. Each bit length gets its own set of workers.
+     */
+    public void start() {
+        startNanos = System.nanoTime();
+        for (Map.Entry<Integer, Shelf> entry : shelves.entrySet()) {
+            for (int i = 0; i < workersPerBitLength; i++) {
+                workers.execute(() -> refill(entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Takes a prime from the pool, waiting for a worker to produce one if the pool is empty.
+     * @param bitLength - One of the configured bit lengths.
+     * @return A prime of the requested bit length.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public BigInteger take(int bitLength) throws InterruptedException {
+        Shelf shelf = shelf(bitLength);
+        BigInteger prime = shelf.primes.poll();
+        if (prime == null) {
+            shelf.emptyTakes.increment();
+            prime = shelf.primes.take();
+        }
+        shelf.consumed.increment();
+        return prime;
+    }
+
+    /**
+     * Takes a prime from the pool, waiting at most the given time.
+     * @param bitLength - One of the configured bit lengths.
+     * @param timeout - How long to wait before giving up.
+     * @param unit - The unit of the timeout.
+     * @return A prime of the requested bit length, or null if none became available in time.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public BigInteger poll(int bitLength, long timeout, TimeUnit unit) throws InterruptedException {
+        Shelf shelf = shelf(bitLength);
+        BigInteger prime = shelf.primes.poll();
+        if (prime == null) {
+            shelf.emptyTakes.increment();
+            prime = shelf.primes.poll(timeout, unit);
+            if (prime == null) {
+                return null;
+            }
+        }
+        shelf.consumed.increment();
+        return prime;
+    }
+
+    /**
+     * Returns an unused prime to the pool if there is room for it.
+     * @param bitLength - The bit length of the prime.
+     * @param prime - A prime previously taken from this pool.
+     * @return true if the prime was put back, false if the pool was full.
+     */
+    public boolean offer(int bitLength, BigInteger prime) {
+        Shelf shelf = shelf(bitLength);
+        if (shelf.primes.offer(prime)) {
+            shelf.consumed.decrement();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds a prime produced elsewhere, such as one saved by a {@link PrimeStore} before a restart.
+     * It is not counted as produced by the workers.
+     * @param bitLength - The bit length of the prime.
+     * @param prime - A prime generated with at least this pool's certainty.
+     * @return true if the prime was added, false if the pool was full.
+     */
+    public boolean preload(int bitLength, BigInteger prime) {
+        return shelf(bitLength).primes.offer(prime);
+    }
+
+    /**
+     * @param bitLength - One of the configured bit lengths.
+     * @return A snapshot of the pool's counters for that bit length.
+     */
+    public Stats stats(int bitLength) {
+        Shelf shelf = shelf(bitLength);
+        long produced = shelf.produced.sum();
+        double elapsedSeconds = startNanos == 0 ? 0 : (System.nanoTime() - startNanos) / 1e9;
+        return new Stats(shelf.primes.size(), produced, shelf.consumed.sum(), shelf.emptyTakes.sum(),
+                elapsedSeconds > 0 ? produced / elapsedSeconds : 0,
+                produced > 0 ? shelf.generationNanos.sum() / produced : 0);
+    }
+
+    /**
+     * Stops the background workers. Primes already in the pool can still be taken.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    private Shelf shelf(int bitLength) {
+        Shelf shelf = shelves.get(bitLength);
+        if (shelf == null) {
+            throw new IllegalArgumentException("No pool configured for " + bitLength + "-bit primes");
+        }
+        return shelf;
+    }
+
+    /**
+     * Worker loop: generate, then block on the bounded queue until there is room.
+     */
+    private void refill(int bitLength, Shelf shelf) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long start = System.nanoTime();
+                BigInteger prime = checker.generatePrime(bitLength, certainty);
+                shelf.generationNanos.add(System.nanoTime() - start);
+                shelf.primes.put(prime);
+                shelf.produced.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Counters for one bit length of the pool.
+     * @param available - Primes currently waiting in the pool.
+     * @param produced - Primes generated by the workers since start.
+     * @param consumed - Primes taken and not returned.
+     * @param emptyTakes - Takes that found the pool empty and had to wait.
+     * @param refillRate - Primes produced per second since start.
+     * @param averageGenerationNanos - Mean time a worker spent generating one prime.
+     */
+    public record Stats(int available, long produced, long consumed, long emptyTakes,
+            double refillRate, long averageGenerationNanos) {
+    }
+
+    private static final class Shelf {
+        final BlockingQueue<BigInteger> primes;
+        final LongAdder produced = new LongAdder();
+        final LongAdder consumed = new LongAdder();
+        final LongAdder emptyTakes = new LongAdder();
+        final LongAdder generationNanos = new LongAdder();
+
+        Shelf(int capacity) {
+            this.primes = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package utils;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only on-disk store of generated primes, one memory-mapped file per bit length, so a
+ * restarted service can pick up the primes it paid for instead of generating them again.
+ * Key material is kept as its primes and rebuilt with {@link RSAKeyPair#fromPrimes}.
+ * <p>
+ * Every file starts with a 16-byte header (magic, version, bit length, record count) followed by
+ * fixed-size records: a state byte, the certainty the prime was generated with, a CRC32 of the
+ * certainty and the prime, then the prime's magnitude. The state byte changes when a prime is taken,
+ * so it is left out of the checksum; a record with an unknown state is treated as corrupt instead.
+ * Records whose checksum does not match are marked corrupt and skipped.
+ * <p>
+ * An appended record is forced to disk before the count in the header is raised and forced again,
+ * so a crash mid-append, including a power loss, leaves the record invisible rather than torn.
+ * Taking a prime flips its state byte and forces it before the prime is returned, so each stored
+ * prime is handed out at most once across restarts. A crash after a take can lose that prime but
+ * never hands it out twice. A file is locked by the store that opened it, so two stores never hand
+ * out the same prime.
+ */
+public class PrimeStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x50524D53; // "PRMS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int COUNT_OFFSET = 12;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final byte AVAILABLE = 0;
+    private static final byte CONSUMED = 1;
+    private static final byte CORRUPT = 2;
+
+    private final Path directory;
+    private final Map<Integer, Shelf> shelves = new HashMap<>();
+    private boolean closed;
+
+    /**
+     * Opens a store, creating the directory if needed. Files for a bit length are opened on first use.
+     * @param directory - The directory holding one file per bit length.
+     * @throws IOException if the directory cannot be created.
+     */
+    public PrimeStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Appends a prime to the file for its bit length.
+     * @param prime - The prime to store.
+     * @param certainty - The certainty it was generated or checked with.
+     * @throws IOException if the file cannot be grown.
+     */
+    public void append(BigInteger prime, int certainty) throws IOException {
+        if (prime.signum() <= 0) {
+            throw new IllegalArgumentException("Only positive numbers can be stored");
+        }
+        shelf(prime.bitLength()).append(prime, certainty);
+    }
+
+    /**
+     * Takes the oldest unconsumed prime of a bit length that was stored with at least the given certainty.
+     * Entries with a lower certainty are left for callers that accept them.
+     * @param bitLength - The bit length wanted.
+     * @param certainty - The minimum certainty accepted.
+     * @return A prime that no other caller of this store will be given, or null if none is available.
+     * @throws IOException if the file cannot be opened.
+     */
+    public BigInteger poll(int bitLength, int certainty) throws IOException {
+        return shelf(bitLength).poll(certainty);
+    }
+
+    /**
+     * @param bitLength - The bit length to count.
+     * @return The number of stored primes of that bit length that have not been taken.
+     * @throws IOException if the file cannot be opened.
+     */
+    public int available(int bitLength) throws IOException {
+        return shelf(bitLength).available();
+    }
+
+    /**
+     * @param bitLength - The bit length to count.
+     * @return The number of records of that bit length that failed their checksum.
+     * @throws IOException if the file cannot be opened.
+     */
+    public int corrupted(int bitLength) throws IOException {
+        return shelf(bitLength).corrupted();
+    }
+
+    /**
+     * Moves stored primes into a pool until the pool is full or the store runs out, so the pool
+     * starts warm. A prime the pool turns away is left in the store as it was, certainty included.
+     * @param pool - The pool to fill.
+     * @param bitLength - The bit length to move, which the pool must be configured for.
+     * @param certainty - The minimum certainty accepted.
+     * @return The number of primes moved.
+     * @throws IOException if the store cannot be read or written.
+     */
+    public int drainTo(PrimePool pool, int bitLength, int certainty) throws IOException {
+        Shelf shelf = shelf(bitLength);
+        int moved = 0;
+        int index;
+        while ((index = shelf.take(certainty)) >= 0) {
+            if (!pool.preload(bitLength, shelf.read(index))) {
+                // Undo the take in place rather than appending a copy, so the file does not grow
+                shelf.release(index);
+                break;
+            }
+            moved++;
+        }
+        return moved;
+    }
+
+    /**
+     * Writes outstanding changes to disk.
+     */
+    public synchronized void force() {
+        for (Shelf shelf : shelves.values()) {
+            shelf.force();
+        }
+    }
+
+    /**
+     * Forces outstanding changes to disk and closes every file.
+     * @throws IOException if a file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Shelf shelf : shelves.values()) {
+            shelf.close();
+        }
+    }
+
+    private synchronized Shelf shelf(int bitLength) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Store is closed");
+        }
+        if (bitLength < 2) {
+            throw new IllegalArgumentException("bitLength < 2");
+        }
+        Shelf shelf = shelves.get(bitLength);
+        if (shelf == null) {
+            shelf = new Shelf(directory.resolve("primes-" + bitLength + ".bin"), bitLength);
+            shelves.put(bitLength, shelf);
+        }
+        return shelf;
+    }
+
+    /**
+     * The mapped file for one bit length. All access goes through the shelf's lock.
+     */
+    private static final class Shelf {
+        private final int bitLength;
+        private final int valueSize;
+        private final int recordSize;
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+        private int count;
+        private int available;
+        private int corrupted;
+        /** Every record before this index is consumed or corrupt. */
+        private int firstUnconsumed;
+
+        Shelf(Path file, int bitLength) throws IOException {
+            this.bitLength = bitLength;
+            this.valueSize = (bitLength + 7) / 8;
+            this.recordSize = 1 + 4 + 4 + valueSize;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            lock(file);
+            try {
+                load(file);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        private void load(Path file) throws IOException {
+            if (channel.size() == 0) {
+                map(HEADER_SIZE + (long) INITIAL_CAPACITY * recordSize);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, bitLength);
+                buffer.putInt(COUNT_OFFSET, 0);
+            } else {
+                map(channel.size());
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != bitLength) {
+                    throw new IOException(file + " is not a store of " + bitLength + "-bit primes");
+                }
+                count = buffer.getInt(COUNT_OFFSET);
+                for (int i = 0; i < count; i++) {
+                    byte state = buffer.get(offset(i));
+                    if (state == AVAILABLE) {
+                        available++;
+                    } else if (state != CONSUMED) {
+                        buffer.put(offset(i), CORRUPT);
+                        corrupted++;
+                    }
+                }
+            }
+        }
+
+        synchronized void append(BigInteger prime, int certainty) throws IOException {
+            long end = HEADER_SIZE + (long) (count + 1) * recordSize;
+            if (end > buffer.capacity()) {
+                map(Math.max(end, HEADER_SIZE + 2L * (buffer.capacity() - HEADER_SIZE)));
+            }
+            byte[] value = magnitude(prime);
+            int at = offset(count);
+            buffer.put(at, AVAILABLE);
+            buffer.putInt(at + 1, certainty);
+            buffer.putInt(at + 5, checksum(certainty, value));
+            buffer.put(at + 9, value);
+            // Publish the record only once it is complete and on disk
+            buffer.force(at, recordSize);
+            buffer.putInt(COUNT_OFFSET, ++count);
+            buffer.force(COUNT_OFFSET, 4);
+            available++;
+        }
+
+        synchronized BigInteger poll(int certainty) {
+            int index = take(certainty);
+            return index < 0 ? null : read(index);
+        }
+
+        /**
+         * Marks the oldest matching record consumed.
+         * @return Its index, or -1 if none matches.
+         */
+        synchronized int take(int certainty) {
+            boolean skipped = false;
+            for (int i = firstUnconsumed; i < count; i++) {
+                int at = offset(i);
+                if (buffer.get(at) != AVAILABLE) {
+                    if (!skipped) {
+                        firstUnconsumed = i + 1;
+                    }
+                    continue;
+                }
+                int stored = buffer.getInt(at + 1);
+                byte[] value = new byte[valueSize];
+                buffer.get(at + 9, value);
+                if (buffer.getInt(at + 5) != checksum(stored, value)) {
+                    buffer.put(at, CORRUPT);
+                    available--;
+                    corrupted++;
+                    continue;
+                }
+                if (stored < certainty) {
+                    skipped = true;
+                    continue;
+                }
+                buffer.put(at, CONSUMED);
+                buffer.force(at, 1);
+                available--;
+                if (!skipped) {
+                    firstUnconsumed = i + 1;
+                }
+                return i;
+            }
+            return -1;
+        }
+
+        synchronized BigInteger read(int index) {
+            byte[] value = new byte[valueSize];
+            buffer.get(offset(index) + 9, value);
+            return new BigInteger(1, value);
+        }
+
+        /**
+         * Makes a record taken by {@link #take} available again.
+         */
+        synchronized void release(int index) {
+            buffer.put(offset(index), AVAILABLE);
+            buffer.force(offset(index), 1);
+            available++;
+            firstUnconsumed = Math.min(firstUnconsumed, index);
+        }
+
+        synchronized int available() {
+            return available;
+        }
+
+        synchronized int corrupted() {
+            return corrupted;
+        }
+
+        synchronized void force() {
+            buffer.force();
+        }
+
+        synchronized void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+
+        /**
+         * Holds the file for this process, since consume-once state lives in this shelf's memory.
+         */
+        private void lock(Path file) throws IOException {
+            try {
+                if (channel.tryLock() != null) {
+                    return;
+                }
+            } catch (OverlappingFileLockException e) {
+                // Another store in this JVM holds it
+            }
+            channel.close();
+            throw new IOException(file + " is already open in another store");
+        }
+
+        private void map(long size) throws IOException {
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Store for " + bitLength + "-bit primes is full");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        private int offset(int index) {
+            return HEADER_SIZE + index * recordSize;
+        }
+
+        private byte[] magnitude(BigInteger prime) {
+            byte[] bytes = prime.toByteArray();
+            // toByteArray adds a sign byte when the top bit is set
+            return bytes.length == valueSize ? bytes : Arrays.copyOfRange(bytes, bytes.length - valueSize, bytes.length);
+        }
+
+        private static int checksum(int certainty, byte[] value) {
+            CRC32 crc = new CRC32();
+            crc.update(certainty >>> 24);
+            crc.update(certainty >>> 16);
+            crc.update(certainty >>> 8);
+            crc.update(certainty);
+            crc.update(value);
+            return (int) crc.getValue();
+        }
+    }
+}
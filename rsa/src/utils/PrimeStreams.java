@@ -0,0 +1,147 @@
+package utils;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams of primes for callers that need many of them.
+ * <p>
+ * {@link #randomPrimes} gives independent random primes of one bit length. Every element is its own
+ * generatePrime search from a fresh random start, because primes taken from one walk lie close
+ * together and an RSA modulus built from two of them falls to Fermat factorisation. The stream
+ * splits evenly, so {@code .parallel()} spreads the searches over the common fork-join pool.
+ * <p>
+ * {@link #primesAfter} walks the primes above a seed in order, sieving one progression of odd
+ * numbers for the whole walk. It suits test data, where speed matters and the primes being
+ * neighbours does not.
+ */
+public final class PrimeStreams {
+
+    private PrimeStreams() {
+    }
+
+    /**
+     * @param checker - Generates each element.
+     * @param bitLength - The bit length of every prime.
+     * @param certainty - The certainty passed to generatePrime.
+     * @return An unbounded, unordered stream of independently generated primes.
+     */
+    public static Stream<BigInteger> randomPrimes(PrimeChecker checker, int bitLength, int certainty) {
+        return Stream.generate(() -> checker.generatePrime(bitLength, certainty));
+    }
+
+    /**
+     * @param checker - Generates each element.
+     * @param bitLength - The bit length of every prime.
+     * @param certainty - The certainty passed to generatePrime.
+     * @param count - The number of primes in the stream.
+     * @return A sized stream of independently generated primes that splits in halves when run in parallel.
+     */
+    public static Stream<BigInteger> randomPrimes(PrimeChecker checker, int bitLength, int certainty, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+        }
+        return StreamSupport.stream(new RandomPrimeSpliterator(checker, bitLength, certainty, 0, count), false);
+    }
+
+    /**
+     * @param checker - Tests each candidate of the walk.
+     * @param seed - The walk starts just above this number.
+     * @param certainty - The iterations passed to isPrime.
+     * @return The unbounded, ascending stream of probable primes greater than seed.
+     */
+    public static Stream<BigInteger> primesAfter(PrimeChecker checker, BigInteger seed, int certainty) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(walk(checker, seed, certainty),
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Walks the probable primes greater than seed in ascending order.
+     */
+    static Iterator<BigInteger> walk(PrimeChecker checker, BigInteger seed, int certainty) {
+        return new Iterator<>() {
+            private BigInteger last = seed;
+            private ProgressionSieve candidates;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public BigInteger next() {
+                if (last.compareTo(BigInteger.TWO) < 0) {
+                    last = BigInteger.TWO;
+                    return last;
+                }
+                if (candidates == null) {
+                    BigInteger start = last.add(BigInteger.ONE).setBit(0);
+                    // Table primes below the start can only be proper divisors of the terms
+                    candidates = new ProgressionSieve(start, BigInteger.TWO, false, SmallPrimes.countBelow(
+                            start.bitLength() < 63 ? start.longValue() : Long.MAX_VALUE));
+                }
+                BigInteger candidate;
+                do {
+                    candidate = candidates.next();
+                } while (!checker.isPrime(candidate, certainty));
+                last = candidate;
+                return candidate;
+            }
+        };
+    }
+
+    /**
+     * Covers the element indices [from, to); splitting hands the lower half to a new spliterator.
+     */
+    private static final class RandomPrimeSpliterator implements Spliterator<BigInteger> {
+        private final PrimeChecker checker;
+        private final int bitLength;
+        private final int certainty;
+        private long from;
+        private final long to;
+
+        RandomPrimeSpliterator(PrimeChecker checker, int bitLength, int certainty, long from, long to) {
+            this.checker = checker;
+            this.bitLength = bitLength;
+            this.certainty = certainty;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super BigInteger> action) {
+            if (from >= to) {
+                return false;
+            }
+            from++;
+            action.accept(checker.generatePrime(bitLength, certainty));
+            return true;
+        }
+
+        @Override
+        public Spliterator<BigInteger> trySplit() {
+            long mid = (from + to) >>> 1;
+            if (mid <= from) {
+                return null;
+            }
+            RandomPrimeSpliterator lower = new RandomPrimeSpliterator(checker, bitLength, certainty, from, mid);
+            from = mid;
+            return lower;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+        }
+    }
+}
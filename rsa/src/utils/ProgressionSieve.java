@@ -0,0 +1,107 @@
+package utils;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Sieves the arithmetic progression start, start + step, start + 2 * step, ... against the
+ * {@link SmallPrimes} table, one window at a time. Besides terms with a small factor, it can also
+ * drop terms x for which 2x + 1 has a small factor, so the two halves of a safe prime are sieved
+ * in the same pass. The step must be even and share no factor with the table primes used.
+ */
+class ProgressionSieve {
+
+    private static final int WINDOW_SIZE = 4096;
+
+    private final BigInteger step;
+    private final boolean sieveDoubled;
+    private final int primeCount;
+    private final int[] residues;
+    private final int[] stepResidues;
+    private final int[] stepInverses;
+    private final long[] window = new long[WINDOW_SIZE / 64];
+
+    private BigInteger base;
+    private int position;
+
+    /**
+     * @param start - The first term of the progression.
+     * @param step - The distance between terms.
+     * @param sieveDoubled - Whether to also drop terms x where 2x + 1 has a small factor.
+     * @param primeCount - How many primes of the table to sieve with; each must be below every term.
+     */
+    ProgressionSieve(BigInteger start, BigInteger step, boolean sieveDoubled, int primeCount) {
+        this.step = step;
+        this.sieveDoubled = sieveDoubled;
+        this.primeCount = primeCount;
+        this.residues = new int[primeCount];
+        this.stepResidues = new int[primeCount];
+        this.stepInverses = new int[primeCount];
+        SmallPrimes.residues(step, primeCount, stepResidues);
+        for (int k = 0; k < primeCount; k++) {
+            int p = SmallPrimes.ODD_PRIMES[k];
+            stepInverses[k] = BigInteger.valueOf(stepResidues[k]).modInverse(BigInteger.valueOf(p)).intValue();
+        }
+        this.base = start;
+        SmallPrimes.residues(start, primeCount, residues);
+        sieveWindow();
+    }
+
+    /**
+     * @return The next term that survived the sieve.
+     */
+    BigInteger next() {
+        while (true) {
+            int i = nextClear(position);
+            if (i < WINDOW_SIZE) {
+                position = i + 1;
+                return base.add(step.multiply(BigInteger.valueOf(i)));
+            }
+            advance();
+        }
+    }
+
+    /**
+     * Moves the base past the current window, updating the residues without touching the BigInteger.
+     */
+    private void advance() {
+        base = base.add(step.multiply(BigInteger.valueOf(WINDOW_SIZE)));
+        for (int k = 0; k < primeCount; k++) {
+            int p = SmallPrimes.ODD_PRIMES[k];
+            residues[k] = (int) ((residues[k] + (long) stepResidues[k] * WINDOW_SIZE) % p);
+        }
+        sieveWindow();
+    }
+
+    /**
+     * Marks every offset i whose term base + i * step, or twice it plus one, is divisible by a table prime.
+     */
+    private void sieveWindow() {
+        Arrays.fill(window, 0L);
+        for (int k = 0; k < primeCount; k++) {
+            int p = SmallPrimes.ODD_PRIMES[k];
+            // base + i * step = 0 (mod p) at i = -base / step
+            mark((long) (p - residues[k]) % p * stepInverses[k] % p, p);
+            if (sieveDoubled) {
+                // 2 * (base + i * step) + 1 = 0 (mod p) at i = ((p - 1) / 2 - base) / step
+                mark((long) ((p - 1) / 2 - residues[k] + p) % p * stepInverses[k] % p, p);
+            }
+        }
+        position = 0;
+    }
+
+    private void mark(long first, int p) {
+        for (long i = first; i < WINDOW_SIZE; i += p) {
+            window[(int) (i >>> 6)] |= 1L << i;
+        }
+    }
+
+    private int nextClear(int from) {
+        for (int i = from; i < WINDOW_SIZE; i++) {
+            if ((window[i >>> 6] & (1L << i)) == 0) {
+                return i;
+            }
+        }
+        return WINDOW_SIZE;
+    }
+}
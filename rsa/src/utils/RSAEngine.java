@@ -0,0 +1,130 @@
+package utils;
+
+import java.math.BigInteger;
+
+/**
+ * Textbook RSA operations on a {@link RSAKeyPair}. Private-key operations use the Chinese
+ * Remainder Theorem with the key's precomputed dp, dq and qInv: two half-size exponentiations
+ * instead of one full-size one. No padding is applied; callers encode messages themselves.
+ */
+public class RSAEngine {
+
+    private final RSAKeyPair keyPair;
+    private final boolean blinding;
+    private final boolean faultCheck;
+
+    /**
+     * Creates an engine with blinding and fault checking both enabled.
+     * @param keyPair - The key pair to operate with.
+     */
+    public RSAEngine(RSAKeyPair keyPair) {
+        this(keyPair, true, true);
+    }
+
+    /**
+     * @param keyPair - The key pair to operate with.
+     * @param blinding - Whether private-key operations are blinded with a fresh random factor.
+     * @param faultCheck - Whether every private-key result is checked with the public exponent before it is returned.
+     */
+    public RSAEngine(RSAKeyPair keyPair, boolean blinding, boolean faultCheck) {
+        this.keyPair = keyPair;
+        this.blinding = blinding;
+        this.faultCheck = faultCheck;
+    }
+
+    /**
+     * Encrypts with the public key.
+     * @param message - The message representative, in the range [0, n).
+     * @return message^e mod n.
+     */
+    public BigInteger encrypt(BigInteger message) {
+        checkRange(message);
+        return message.modPow(keyPair.getPublicExponent(), keyPair.getModulus());
+    }
+
+    /**
+     * Decrypts with the private key.
+     * @param ciphertext - The ciphertext representative, in the range [0, n).
+     * @return ciphertext^d mod n.
+     */
+    public BigInteger decrypt(BigInteger ciphertext) {
+        return privateOperation(ciphertext);
+    }
+
+    /**
+     * Signs with the private key.
+     * @param message - The message representative, in the range [0, n).
+     * @return message^d mod n.
+     */
+    public BigInteger sign(BigInteger message) {
+        return privateOperation(message);
+    }
+
+    /**
+     * Verifies a signature with the public key.
+     * @param message - The message representative that was signed.
+     * @param signature - The signature to check.
+     * @return true if signature^e mod n equals the message.
+     */
+    public boolean verify(BigInteger message, BigInteger signature) {
+        if (signature.signum() < 0 || signature.compareTo(keyPair.getModulus()) >= 0) {
+            return false;
+        }
+        return signature.modPow(keyPair.getPublicExponent(), keyPair.getModulus()).equals(message);
+    }
+
+    private BigInteger privateOperation(BigInteger input) {
+        checkRange(input);
+        BigInteger n = keyPair.getModulus();
+        BigInteger e = keyPair.getPublicExponent();
+
+        BigInteger r = null;
+        BigInteger x = input;
+        if (blinding) {
+            // Blind with r^e so the exponentiation never sees the caller's value: (x * r^e)^d = x^d * r
+            r = randomUnit(n);
+            x = x.multiply(r.modPow(e, n)).mod(n);
+        }
+
+        BigInteger y = crt(x);
+
+        if (faultCheck && !y.modPow(e, n).equals(x)) {
+            // A faulty half of the CRT would leak a factor of n through gcd(y^e - x, n), so never release y
+            throw new IllegalStateException("RSA private-key operation failed verification");
+        }
+
+        if (blinding) {
+            y = y.multiply(r.modInverse(n)).mod(n);
+        }
+        return y;
+    }
+
+    /**
+     * Garner's recombination: y = yq + q * (qInv * (yp - yq) mod p).
+     */
+    private BigInteger crt(BigInteger x) {
+        BigInteger p = keyPair.getP();
+        BigInteger q = keyPair.getQ();
+        BigInteger yp = x.modPow(keyPair.getDp(), p);
+        BigInteger yq = x.modPow(keyPair.getDq(), q);
+        BigInteger h = keyPair.getQInv().multiply(yp.subtract(yq)).mod(p);
+        return yq.add(h.multiply(q));
+    }
+
+    /**
+     * Draws a random r in [2, n - 1] that is invertible modulo n.
+     */
+    private static BigInteger randomUnit(BigInteger n) {
+        BigInteger r;
+        do {
+            r = PrimeChecker.getRandomBigIntegerInRange(BigInteger.TWO, n.subtract(BigInteger.ONE));
+        } while (!r.gcd(n).equals(BigInteger.ONE));
+        return r;
+    }
+
+    private void checkRange(BigInteger value) {
+        if (value.signum() < 0 || value.compareTo(keyPair.getModulus()) >= 0) {
+            throw new IllegalArgumentException("value out of range [0, n)");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package utils;
+
+import java.math.BigInteger;
+
+/**
+ * An RSA key pair assembled from two primes, including the Chinese Remainder Theorem
+ * parameters used to speed up private-key operations.
+ */
+public final class RSAKeyPair {
+
+    /** The usual public exponent, 2^16 + 1. */
+    public static final BigInteger DEFAULT_PUBLIC_EXPONENT = BigInteger.valueOf(65537);
+
+    private final BigInteger modulus;
+    private final BigInteger publicExponent;
+    private final BigInteger privateExponent;
+    private final BigInteger p;
+    private final BigInteger q;
+    private final BigInteger dp;
+    private final BigInteger dq;
+    private final BigInteger qInv;
+
+    private RSAKeyPair(BigInteger modulus, BigInteger publicExponent, BigInteger privateExponent,
+            BigInteger p, BigInteger q, BigInteger dp, BigInteger dq, BigInteger qInv) {
+        this.modulus = modulus;
+        this.publicExponent = publicExponent;
+        this.privateExponent = privateExponent;
+        this.p = p;
+        this.q = q;
+        this.dp = dp;
+        this.dq = dq;
+        this.qInv = qInv;
+    }
+
+    /**
+     * Builds a key pair from two distinct primes. The private exponent is taken modulo
+     * lambda(n) = lcm(p - 1, q - 1), which gives the smallest valid d.
+     * @param p - The first prime factor.
+     * @param q - The second prime factor, different from p.
+     * @param e - The public exponent, which must be coprime to p - 1 and q - 1.
+     * @return The assembled key pair.
+     * @throws IllegalArgumentException if p equals q or e is not invertible modulo lambda(n).
+     */
+    public static RSAKeyPair fromPrimes(BigInteger p, BigInteger q, BigInteger e) {
+        if (p.equals(q)) {
+            throw new IllegalArgumentException("p and q must be distinct");
+        }
+        BigInteger pMinusOne = p.subtract(BigInteger.ONE);
+        BigInteger qMinusOne = q.subtract(BigInteger.ONE);
+        BigInteger phi = pMinusOne.multiply(qMinusOne);
+        BigInteger lambda = phi.divide(pMinusOne.gcd(qMinusOne));
+        if (!e.gcd(lambda).equals(BigInteger.ONE)) {
+            throw new IllegalArgumentException("e is not coprime to lambda(n)");
+        }
+
+        BigInteger d = e.modInverse(lambda);
+        return new RSAKeyPair(p.multiply(q), e, d, p, q,
+                d.mod(pMinusOne), d.mod(qMinusOne), q.modInverse(p));
+    }
+
+    /**
+     * Draws primes until a pair gives a modulus of exactly the requested length, then builds the key pair.
+     * Candidates only have their top bit set, so about two pairs in five fall one bit short. Both
+     * primes of a short pair are handed back and a fresh pair is drawn, since keeping either one
+     * would bias the next draw towards the same failure.
+     * @param modulusBits - The exact bit length of the modulus.
+     * @param e - The public exponent.
+     * @param primes - Supplies primes with p - 1 coprime to e and takes back those left unused.
+     * @return The assembled key pair.
+     * @throws InterruptedException if interrupted while waiting for a prime.
+     */
+    public static RSAKeyPair fromPrimeSource(int modulusBits, BigInteger e, PrimeSource primes)
+            throws InterruptedException {
+        int qBits = modulusBits / 2;
+        int pBits = modulusBits - qBits;
+        while (true) {
+            BigInteger p = primes.next(pBits);
+            BigInteger q = primes.next(qBits);
+            if (!q.equals(p) && p.multiply(q).bitLength() == modulusBits) {
+                return fromPrimes(p, q, e);
+            }
+            primes.giveBack(pBits, p);
+            if (!q.equals(p)) {
+                primes.giveBack(qBits, q);
+            }
+        }
+    }
+
+    /**
+     * Where {@link #fromPrimeSource} gets its primes.
+     */
+    public interface PrimeSource {
+        /**
+         * @param bitLength - The bit length wanted.
+         * @return A prime of that length whose p - 1 is coprime to the public exponent.
+         * @throws InterruptedException if interrupted while waiting for one.
+         */
+        BigInteger next(int bitLength) throws InterruptedException;
+
+        /**
+         * Takes back a prime that did not make it into a key pair. Sources that cannot reuse it drop it.
+         * @param bitLength - The bit length of the prime.
+         * @param prime - A prime previously returned by {@link #next}.
+         */
+        default void giveBack(int bitLength, BigInteger prime) {
+        }
+    }
+
+    /**
+     * @return The modulus n = p * q.
+     */
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
+    /**
+     * @return The public exponent e.
+     */
+    public BigInteger getPublicExponent() {
+        return publicExponent;
+    }
+
+    /**
+     * @return The private exponent d = e^-1 mod lambda(n).
+     */
+    public BigInteger getPrivateExponent() {
+        return privateExponent;
+    }
+
+    /**
+     * @return The prime factor p.
+     */
+    public BigInteger getP() {
+        return p;
+    }
+
+    /**
+     * @return The prime factor q.
+     */
+    public BigInteger getQ() {
+        return q;
+    }
+
+    /**
+     * @return d mod (p - 1).
+     */
+    public BigInteger getDp() {
+        return dp;
+    }
+
+    /**
+     * @return d mod (q - 1).
+     */
+    public BigInteger getDq() {
+        return dq;
+    }
+
+    /**
+     * @return q^-1 mod p.
+     */
+    public BigInteger getQInv() {
+        return qInv;
+    }
+}
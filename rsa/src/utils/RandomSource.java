@@ -0,0 +1,51 @@
+package utils;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Supplies the random generator a PrimeChecker uses on the calling thread. Checkers take one
+ * source for candidate draws and one for witness draws, so witnesses can come from a cheaper
+ * generator and threads do not have to share one lock.
+ */
+@FunctionalInterface
+public interface RandomSource {
+
+    /**
+     * @return The generator to use on the calling thread.
+     */
+    Random get();
+
+    /**
+     * @return The default source, the shared {@link PrimeChecker#secureRandom}.
+     */
+    static RandomSource shared() {
+        return shared(PrimeChecker.secureRandom);
+    }
+
+    /**
+     * @param random - A thread-safe generator that every thread will share.
+     * @return A source that always hands out the same generator.
+     */
+    static RandomSource shared(Random random) {
+        return () -> random;
+    }
+
+    /**
+     * @param factory - Creates the generator for a thread the first time that thread asks for one.
+     * @return A source that gives every thread its own generator.
+     */
+    static RandomSource perThread(Supplier<? extends Random> factory) {
+        ThreadLocal<Random> generators = ThreadLocal.withInitial(factory);
+        return generators::get;
+    }
+
+    /**
+     * @param factory - Creates the underlying generator for each thread.
+     * @param bufferSize - The number of bytes drawn from the underlying generator at a time.
+     * @return A source that gives every thread its own {@link BufferedRandom}.
+     */
+    static RandomSource buffered(Supplier<? extends Random> factory, int bufferSize) {
+        return perThread(() -> new BufferedRandom(factory.get(), bufferSize));
+    }
+}
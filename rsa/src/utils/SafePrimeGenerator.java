@@ -0,0 +1,108 @@
+package utils;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Generates and checks safe primes: primes p for which q = (p - 1) / 2 is also prime, as used for
+ * Diffie-Hellman groups. Candidates for q are sieved together with 2q + 1, so only pairs where
+ * neither has a small factor are tested. Each pair then gets one strong round to base 2 on q and a
+ * Fermat round to base 2 on p before q pays for the full number of rounds. Once q is prime, that
+ * Fermat round already proves p prime by Pocklington's criterion, so p needs no rounds of its own.
+ */
+public class SafePrimeGenerator implements PrimeChecker {
+
+    private final RandomSource candidateSource;
+    private final RandomSource witnessSource;
+
+    /**
+     * Creates a generator that draws candidates and witnesses from the shared secureRandom.
+     */
+    public SafePrimeGenerator() {
+        this(RandomSource.shared(), RandomSource.shared());
+    }
+
+    /**
+     * @param candidateSource the source of random starting points in generatePrime
+     * @param witnessSource   the source of random witnesses for the rounds on q
+     */
+    public SafePrimeGenerator(RandomSource candidateSource, RandomSource witnessSource) {
+        this.candidateSource = candidateSource;
+        this.witnessSource = witnessSource;
+    }
+
+    /**
+     * Checks if a number is a safe prime.
+     *
+     * @param n          the number to check
+     * @param iterations the number of random Miller-Rabin rounds run on (n - 1) / 2 after a base-2 round
+     * @return true if n and (n - 1) / 2 are both probably prime, false otherwise
+     */
+    @Override
+    public boolean isPrime(BigInteger n, int iterations) {
+        if (n.compareTo(BigInteger.valueOf(5)) < 0) return false;
+        BigInteger q = n.shiftRight(1);
+        if (n.bitLength() <= 64) {
+            return n.testBit(0) && LongPrimality.isPrimeUnsigned(n.longValue()) && LongPrimality.isPrimeUnsigned(q.longValue());
+        }
+        // p = 2q + 1 with q odd means p = 3 (mod 4)
+        if (!n.testBit(0) || !n.testBit(1)) return false;
+        return isSafePair(q, n, iterations, witnessSource.get());
+    }
+
+    /**
+     * Generates a safe prime with the specified bit length.
+     *
+     * @param bitLength the bit length of the safe prime, at least 3
+     * @param certainty the number of random Miller-Rabin rounds run on (p - 1) / 2 after a base-2 round
+     * @return a safe prime with the specified bit length
+     */
+    @Override
+    public BigInteger generatePrime(int bitLength, int certainty) {
+        if (bitLength < 3) {
+            throw new ArithmeticException("bitLength < 3");
+        }
+        int qBits = bitLength - 1;
+        // Every q is at least 2^(qBits-1), so any table prime below that is a proper divisor of q and of 2q + 1.
+        int primeCount = qBits > 17 ? SmallPrimes.count() : SmallPrimes.countBelow(1L << (qBits - 1));
+        Random random = candidateSource.get();
+        Random witnesses = witnessSource.get();
+        while (true) {
+            BigInteger start = new BigInteger(qBits, random).setBit(qBits - 1).setBit(0);
+            ProgressionSieve candidates = new ProgressionSieve(start, BigInteger.TWO, true, primeCount);
+            BigInteger q;
+            // Walking off the top of the bit length draws a fresh starting point
+            while ((q = candidates.next()).bitLength() == qBits) {
+                BigInteger p = q.shiftLeft(1).setBit(0);
+                if (bitLength <= 64) {
+                    if (LongPrimality.isPrimeUnsigned(q.longValue()) && LongPrimality.isPrimeUnsigned(p.longValue())) {
+                        return p;
+                    }
+                } else if (isSafePair(q, p, certainty, witnesses)) {
+                    return p;
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests p = 2q + 1 for q above 2^63, cheapest rejections first.
+     */
+    private static boolean isSafePair(BigInteger q, BigInteger p, int iterations, Random random) {
+        MillerRabinContext context = new MillerRabinContext(q);
+        if (!context.passes(BigInteger.TWO)) {
+            return false;
+        }
+        // With q prime, 2^(p-1) = 1 (mod p) and gcd(2^2 - 1, p) = 1 prove p prime
+        if (!BigInteger.TWO.modPow(p.subtract(BigInteger.ONE), p).equals(BigInteger.ONE)) {
+            return false;
+        }
+        // The base-2 round is only a filter; certainty counts the random rounds, as in the other checkers
+        for (int i = 0; i < iterations; i++) {
+            if (!context.passes(context.randomWitness(random))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,186 @@
+package utils;
+
+import java.util.PrimitiveIterator;
+import java.util.stream.LongStream;
+
+/**
+ * Segmented Sieve of Eratosthenes for enumerating every prime in a range.
+ * Only odd numbers are stored, one bit each, and a segment is 32 KiB so it stays in L1/L2 cache
+ * while it is being crossed off. Memory use is one segment per sieving thread plus the base primes
+ * up to sqrt(to), so ranges up to 10^12 and beyond are streamed in bounded memory.
+ */
+public final class SegmentedSieve {
+
+    /** Largest supported exclusive upper bound, which keeps the base primes below 2^25. */
+    public static final long MAX_LIMIT = 1L << 50;
+
+    private static final int SEGMENT_BITS = 32 * 1024 * 8;
+    private static final long SEGMENT_SPAN = 2L * SEGMENT_BITS;
+
+    private SegmentedSieve() {
+    }
+
+    /**
+     * @param from - The inclusive lower bound.
+     * @param to - The exclusive upper bound, at most {@link #MAX_LIMIT}.
+     * @return The primes in [from, to) in ascending order.
+     */
+    public static LongStream primes(long from, long to) {
+        return primes(from, to, false);
+    }
+
+    /**
+     * @param from - The inclusive lower bound.
+     * @param to - The exclusive upper bound, at most {@link #MAX_LIMIT}.
+     * @param parallel - Whether segments are sieved concurrently. The stream stays ordered either way.
+     * @return The primes in [from, to) in ascending order.
+     */
+    public static LongStream primes(long from, long to, boolean parallel) {
+        checkRange(from, to);
+        LongStream two = from <= 2 && 2 < to ? LongStream.of(2) : LongStream.empty();
+        long base = firstOdd(from);
+        if (base >= to) {
+            return two;
+        }
+
+        int[] basePrimes = basePrimes(to);
+        LongStream odd = segments(base, to, parallel).flatMap(k -> {
+            long low = base + k * SEGMENT_SPAN;
+            long high = Math.min(low + SEGMENT_SPAN, to);
+            return LongStream.of(collect(low, high, sieveSegment(low, high, basePrimes)));
+        });
+        return LongStream.concat(two, odd);
+    }
+
+    /**
+     * @param from - The inclusive lower bound.
+     * @param to - The exclusive upper bound, at most {@link #MAX_LIMIT}.
+     * @return An iterator over the primes in [from, to) in ascending order.
+     */
+    public static PrimitiveIterator.OfLong iterator(long from, long to) {
+        return primes(from, to).iterator();
+    }
+
+    /**
+     * Counts the primes in a range without materializing them.
+     * @param from - The inclusive lower bound.
+     * @param to - The exclusive upper bound, at most {@link #MAX_LIMIT}.
+     * @param parallel - Whether segments are sieved concurrently.
+     * @return The number of primes in [from, to).
+     */
+    public static long count(long from, long to, boolean parallel) {
+        checkRange(from, to);
+        long two = from <= 2 && 2 < to ? 1 : 0;
+        long base = firstOdd(from);
+        if (base >= to) {
+            return two;
+        }
+
+        int[] basePrimes = basePrimes(to);
+        return two + segments(base, to, parallel).map(k -> {
+            long low = base + k * SEGMENT_SPAN;
+            long high = Math.min(low + SEGMENT_SPAN, to);
+            long[] composite = sieveSegment(low, high, basePrimes);
+            int bits = oddCount(low, high);
+            long primes = 0;
+            for (int w = 0; w < composite.length; w++) {
+                primes += Long.bitCount(~composite[w] & validMask(w, bits));
+            }
+            return primes;
+        }).sum();
+    }
+
+    private static LongStream segments(long base, long to, boolean parallel) {
+        LongStream segments = LongStream.range(0, (to - base + SEGMENT_SPAN - 1) / SEGMENT_SPAN);
+        return parallel ? segments.parallel() : segments;
+    }
+
+    /**
+     * Crosses off odd multiples of the base primes in [low, high); bit i stands for low + 2i.
+     */
+    private static long[] sieveSegment(long low, long high, int[] basePrimes) {
+        int bits = oddCount(low, high);
+        long[] composite = new long[(bits + 63) >>> 6];
+        for (int p : basePrimes) {
+            long start = (long) p * p;
+            if (start >= high) break;
+            if (start < low) {
+                start = (low + p - 1) / p * p;
+                if ((start & 1) == 0) start += p;
+            }
+            for (long i = (start - low) >>> 1; i < bits; i += p) {
+                composite[(int) (i >>> 6)] |= 1L << i;
+            }
+        }
+        if (low == 1) {
+            composite[0] |= 1L; // 1 is not prime
+        }
+        return composite;
+    }
+
+    private static long[] collect(long low, long high, long[] composite) {
+        int bits = oddCount(low, high);
+        int count = 0;
+        for (int w = 0; w < composite.length; w++) {
+            count += Long.bitCount(~composite[w] & validMask(w, bits));
+        }
+
+        long[] primes = new long[count];
+        int k = 0;
+        for (int w = 0; w < composite.length; w++) {
+            long clear = ~composite[w] & validMask(w, bits);
+            while (clear != 0) {
+                int bit = Long.numberOfTrailingZeros(clear);
+                primes[k++] = low + 2L * ((w << 6) + bit);
+                clear &= clear - 1;
+            }
+        }
+        return primes;
+    }
+
+    /**
+     * @return The bits of word w that stand for numbers inside the segment.
+     */
+    private static long validMask(int w, int bits) {
+        int remaining = bits - (w << 6);
+        return remaining >= 64 ? -1L : (1L << remaining) - 1;
+    }
+
+    private static int oddCount(long low, long high) {
+        return (int) ((high - low + 1) >>> 1);
+    }
+
+    private static long firstOdd(long from) {
+        return from <= 1 ? 1 : from | 1;
+    }
+
+    /**
+     * Plain odd-only bit sieve for the primes up to sqrt(to), which is enough to sieve [0, to).
+     */
+    private static int[] basePrimes(long to) {
+        int limit = (int) Math.sqrt((double) to) + 1;
+        long[] composite = new long[(limit >>> 7) + 1]; // bit i stands for 2i + 1
+        int count = 0;
+        for (int i = 1; 2 * i + 1 <= limit; i++) {
+            if ((composite[i >>> 6] & (1L << i)) != 0) continue;
+            count++;
+            long p = 2L * i + 1;
+            for (long j = (p * p) >>> 1; 2 * j + 1 <= limit; j += p) {
+                composite[(int) (j >>> 6)] |= 1L << j;
+            }
+        }
+
+        int[] primes = new int[count];
+        int k = 0;
+        for (int i = 1; 2 * i + 1 <= limit; i++) {
+            if ((composite[i >>> 6] & (1L << i)) == 0) primes[k++] = 2 * i + 1;
+        }
+        return primes;
+    }
+
+    private static void checkRange(long from, long to) {
+        if (from < 0 || to > MAX_LIMIT) {
+            throw new IllegalArgumentException("need from >= 0 and to <= " + MAX_LIMIT);
+        }
+    }
+}
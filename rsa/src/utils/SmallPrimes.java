@@ -0,0 +1,87 @@
+package utils;
+
+import java.math.BigInteger;
+
+/**
+ * A table of the odd primes below 2^16, built once with the {@link SegmentedSieve} when the class is loaded.
+ * Used to cheaply reject candidates that have a small factor before any modPow is run.
+ */
+public final class SmallPrimes {
+
+    /** Exclusive upper bound of the primes held in the table. */
+    public static final int LIMIT = 1 << 16;
+
+    static final int[] ODD_PRIMES = SegmentedSieve.primes(3, LIMIT).mapToInt(p -> (int) p).toArray();
+
+    private SmallPrimes() {
+    }
+
+    /**
+     * @return The number of odd primes in the table.
+     */
+    public static int count() {
+        return ODD_PRIMES.length;
+    }
+
+    /**
+     * @param index - The index of the prime, starting at 0 for the prime 3.
+     * @return The odd prime at the given index.
+     */
+    public static int get(int index) {
+        return ODD_PRIMES[index];
+    }
+
+    /**
+     * Counts the odd primes in the table that are strictly less than the given bound.
+     * @param bound - The exclusive upper bound.
+     * @return The number of odd primes p in the table with p < bound.
+     */
+    public static int countBelow(long bound) {
+        int lo = 0;
+        int hi = ODD_PRIMES.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ODD_PRIMES[mid] < bound) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Computes n mod p for the first count primes of the table without allocating a BigInteger per prime.
+     * @param n - A non-negative number.
+     * @param count - How many primes of the table to reduce by.
+     * @param out - Receives n mod ODD_PRIMES[i] at index i.
+     */
+    static void residues(BigInteger n, int count, int[] out) {
+        int[] words = toWords(n);
+        for (int i = 0; i < count; i++) {
+            long p = ODD_PRIMES[i];
+            long r = 0;
+            for (int w : words) {
+                r = ((r << 32) | (w & 0xFFFFFFFFL)) % p;
+            }
+            out[i] = (int) r;
+        }
+    }
+
+    /**
+     * Splits a non-negative number into big-endian 32-bit words.
+     */
+    private static int[] toWords(BigInteger n) {
+        byte[] bytes = n.toByteArray();
+        int[] words = new int[(bytes.length + 3) / 4];
+        int b = bytes.length - 1;
+        for (int i = words.length - 1; i >= 0; i--) {
+            int w = 0;
+            for (int shift = 0; shift < 32 && b >= 0; shift += 8) {
+                w |= (bytes[b--] & 0xFF) << shift;
+            }
+            words[i] = w;
+        }
+        return words;
+    }
+}
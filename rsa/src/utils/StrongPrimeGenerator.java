@@ -0,0 +1,105 @@
+package utils;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Generates strong primes for RSA with Gordon's algorithm: primes p where p - 1 has a large prime
+ * factor r, p + 1 has a large prime factor s, and r - 1 has a large prime factor t, in the spirit of
+ * FIPS 186-4 appendix B.3.6. The progressions searched for r and p are sieved against the small
+ * prime table, so only their surviving terms are tested with Miller-Rabin.
+ * Strength cannot be checked after the fact without factoring p - 1 and p + 1, so isPrime is a
+ * plain Miller-Rabin test.
+ */
+public class StrongPrimeGenerator implements PrimeChecker {
+
+    /** The smallest bit length that leaves the auxiliary primes above the small prime table. */
+    public static final int MIN_BIT_LENGTH = 128;
+
+    private final RandomSource candidateSource;
+    private final MillerRabin millerRabin;
+
+    /**
+     * Creates a generator that draws candidates and witnesses from the shared secureRandom.
+     */
+    public StrongPrimeGenerator() {
+        this(RandomSource.shared(), RandomSource.shared());
+    }
+
+    /**
+     * @param candidateSource the source of random starting points for p and its auxiliary primes
+     * @param witnessSource   the source of random Miller-Rabin witnesses
+     */
+    public StrongPrimeGenerator(RandomSource candidateSource, RandomSource witnessSource) {
+        this.candidateSource = candidateSource;
+        this.millerRabin = new MillerRabin(candidateSource, witnessSource);
+    }
+
+    /**
+     * Checks if a number is probably prime with the Miller-Rabin test.
+     *
+     * @param n          the number to check for primality
+     * @param iterations the number of Miller-Rabin rounds
+     * @return true if the number is probably prime, false otherwise
+     */
+    @Override
+    public boolean isPrime(BigInteger n, int iterations) {
+        return millerRabin.isPrime(n, iterations);
+    }
+
+    /**
+     * Generates a strong prime with the specified bit length.
+     *
+     * @param bitLength the bit length of the generated prime, at least {@link #MIN_BIT_LENGTH}
+     * @param certainty the number of Miller-Rabin rounds run on p and on each auxiliary prime
+     * @return a strong prime with the specified bit length
+     */
+    @Override
+    public BigInteger generatePrime(int bitLength, int certainty) {
+        if (bitLength < MIN_BIT_LENGTH) {
+            throw new IllegalArgumentException("Strong primes need at least " + MIN_BIT_LENGTH + " bits");
+        }
+        // r and s together take up all but 16 bits of p, which leaves about 2^14 choices of j below
+        int auxBits = (bitLength - 16) / 2;
+        int tBits = auxBits - 16;
+        Random random = candidateSource.get();
+
+        BigInteger s = millerRabin.generatePrime(auxBits, certainty);
+        BigInteger t = millerRabin.generatePrime(tBits, certainty);
+
+        // r = 2it + 1, starting from an i that puts r at about auxBits bits
+        BigInteger i = new BigInteger(auxBits - tBits - 1, random).setBit(auxBits - tBits - 2);
+        BigInteger tStep = t.shiftLeft(1);
+        BigInteger r = firstPrime(new ProgressionSieve(tStep.multiply(i).add(BigInteger.ONE), tStep, false,
+                SmallPrimes.count()), certainty);
+
+        // p0 = 1 (mod r) and p0 = -1 (mod s), so every p = p0 + 2jrs keeps both properties
+        BigInteger rs = r.multiply(s);
+        BigInteger step = rs.shiftLeft(1);
+        BigInteger p0 = s.modPow(r.subtract(BigInteger.TWO), r).multiply(s).shiftLeft(1).subtract(BigInteger.ONE);
+
+        BigInteger low = BigInteger.ONE.shiftLeft(bitLength - 1).subtract(p0);
+        BigInteger jMin = low.add(step).subtract(BigInteger.ONE).divide(step);
+        BigInteger jMax = BigInteger.ONE.shiftLeft(bitLength).subtract(BigInteger.ONE).subtract(p0).divide(step);
+        BigInteger jRange = jMax.subtract(jMin).add(BigInteger.ONE);
+        while (true) {
+            BigInteger j = jMin.add(PrimeChecker.getRandomBigIntegerInRange(BigInteger.ZERO, jRange.subtract(BigInteger.ONE), random));
+            ProgressionSieve candidates = new ProgressionSieve(p0.add(step.multiply(j)), step, false, SmallPrimes.count());
+            BigInteger p;
+            // Walking off the top of the bit length draws a fresh j
+            while ((p = candidates.next()).bitLength() == bitLength) {
+                if (millerRabin.isPrime(p, certainty)) {
+                    return p;
+                }
+            }
+        }
+    }
+
+    private BigInteger firstPrime(ProgressionSieve candidates, int certainty) {
+        BigInteger candidate;
+        do {
+            candidate = candidates.next();
+        } while (!millerRabin.isPrime(candidate, certainty));
+        return candidate;
+    }
+}
@@ -7,6 +7,35 @@ import java.math.BigInteger;
  * and generating prime numbers using the trial division algorithm.
  */
 public class TrialDivision implements PrimeChecker {
+
+    private final RandomSource candidateSource;
+    private final PrimeMetrics metrics;
+    private final boolean instrumented;
+
+    /**
+     * Creates a checker that draws candidates from the shared secureRandom.
+     */
+    public TrialDivision() {
+        this(RandomSource.shared());
+    }
+
+    /**
+     * @param candidateSource the source of random starting points in generatePrime
+     */
+    public TrialDivision(RandomSource candidateSource) {
+        this(candidateSource, PrimeMetrics.NONE);
+    }
+
+    /**
+     * @param candidateSource the source of random starting points in generatePrime
+     * @param metrics         the listener told about candidates and latencies
+     */
+    public TrialDivision(RandomSource candidateSource, PrimeMetrics metrics) {
+        this.candidateSource = candidateSource;
+        this.metrics = metrics;
+        this.instrumented = metrics != PrimeMetrics.NONE;
+    }
+
     /**
      * Checks if a given number is prime using the trial division algorithm.
      *
@@ -16,9 +45,26 @@ public class TrialDivision implements PrimeChecker {
      */
     @Override
     public boolean isPrime(BigInteger n, int iterations) {
+        if (!instrumented) {
+            return test(n);
+        }
+        long start = System.nanoTime();
+        boolean prime = test(n);
+        metrics.isPrimeCompleted(n.bitLength(), System.nanoTime() - start, prime);
+        if (!prime) {
+            metrics.rejected("trialDivision", n.bitLength(), 1);
+        }
+        return prime;
+    }
+
+    private boolean test(BigInteger n) {
         if (n.compareTo(BigInteger.ONE) <= 0) {
             return false;
         }
+        if (n.bitLength() <= 64) {
+            // Deterministic for every n below 2^64 and far cheaper than dividing up to sqrt(n)
+            return LongPrimality.isPrimeUnsigned(n.longValue());
+        }
         if (n.compareTo(BigInteger.TWO) == 0) {
             return true;
         }
@@ -43,10 +89,18 @@ public class TrialDivision implements PrimeChecker {
      */
     @Override
     public BigInteger generatePrime(int bitLength, int certainty) {
+        long start = instrumented ? System.nanoTime() : 0;
+        CandidateSieve candidates = new CandidateSieve(bitLength, candidateSource.get());
         BigInteger prime;
         do {
-            prime = new BigInteger(bitLength, PrimeChecker.secureRandom);
+            prime = candidates.next();
+            if (instrumented) metrics.candidateDrawn(bitLength);
         } while (!isPrime(prime, certainty));
+
+        if (instrumented) {
+            metrics.rejected("sieve", bitLength, candidates.sieved());
+            metrics.generatePrimeCompleted(bitLength, System.nanoTime() - start);
+        }
         return prime;
     }
 }